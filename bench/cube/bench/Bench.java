@@ -0,0 +1,103 @@
+package cube.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal benchmark harness: warmup iterations, then timed measurement iterations,
+ * reported as mean, standard deviation and a 99% confidence interval.
+ * Every benchmark body returns a long that is folded into a sink so the JIT cannot drop it.
+ */
+public final class Bench {
+
+    /** A benchmark body. Performs one operation and returns a value to be consumed (or, for rate(), the work done). */
+    public interface Op {
+        long run();
+    }
+
+    public static volatile long sink;
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final double iterationSeconds;
+
+    public Bench(int warmupIterations, int measureIterations, double iterationSeconds) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.iterationSeconds = iterationSeconds;
+    }
+
+    /**
+     * Throughput mode: each iteration calls op in a loop for iterationSeconds.
+     * Score is operations per second.
+     */
+    public void throughput(String name, Op op) {
+        List<Double> scores = new ArrayList<>();
+        for (int i = 0; i < warmupIterations + measureIterations; i++) {
+            long acc = 0;
+            long ops = 0;
+            long deadline = System.nanoTime() + (long) (iterationSeconds * 1e9);
+            long t0 = System.nanoTime();
+            long now;
+            do {
+                // Batch the clock reads so timing overhead does not dominate tiny ops
+                for (int k = 0; k < 1024; k++) acc += op.run();
+                ops += 1024;
+                now = System.nanoTime();
+            } while (now < deadline);
+            sink += acc;
+            if (i >= warmupIterations) scores.add(ops / ((now - t0) / 1e9));
+        }
+        report(name, scores, "ops/s");
+    }
+
+    /**
+     * Single-shot mode: each iteration runs op exactly once.
+     * Score is the wall time of one call in milliseconds.
+     */
+    public void latency(String name, Op op) {
+        List<Double> scores = new ArrayList<>();
+        for (int i = 0; i < warmupIterations + measureIterations; i++) {
+            long t0 = System.nanoTime();
+            sink += op.run();
+            long t1 = System.nanoTime();
+            if (i >= warmupIterations) scores.add((t1 - t0) / 1e6);
+        }
+        report(name, scores, "ms/op");
+    }
+
+    /**
+     * Work-rate mode: each iteration runs op once; score is reported work units per second.
+     * Used for search kernels, where op returns the number of nodes it generated.
+     */
+    public void rate(String name, String unit, Op op) {
+        List<Double> scores = new ArrayList<>();
+        for (int i = 0; i < warmupIterations + measureIterations; i++) {
+            long t0 = System.nanoTime();
+            long work = op.run();
+            long t1 = System.nanoTime();
+            if (i >= warmupIterations) scores.add(work / ((t1 - t0) / 1e9));
+        }
+        report(name, scores, unit + "/s");
+    }
+
+    private static void report(String name, List<Double> scores, String unit) {
+        int n = scores.size();
+        double mean = 0;
+        for (double s : scores) mean += s;
+        mean /= n;
+        double var = 0;
+        for (double s : scores) var += (s - mean) * (s - mean);
+        double sd = n > 1 ? Math.sqrt(var / (n - 1)) : 0;
+        double ci = n > 1 ? t99(n - 1) * sd / Math.sqrt(n) : 0;
+        System.out.println(String.format("%-48s %16.3f ± %-14.3f (sd %.3f, n=%d) %s",
+                                         name, mean, ci, sd, n, unit));
+    }
+
+    // Two-sided 99% Student t quantiles for small sample sizes
+    private static double t99(int df) {
+        final double[] t = {63.657, 9.925, 5.841, 4.604, 4.032, 3.707, 3.499, 3.355, 3.250, 3.169,
+                            3.106, 3.055, 3.012, 2.977, 2.947, 2.921, 2.898, 2.878, 2.861, 2.845};
+        return df <= t.length ? t[df - 1] : 2.576;
+    }
+}
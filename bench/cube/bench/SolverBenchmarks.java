@@ -0,0 +1,158 @@
+package cube.bench;
+
+import cube.model.coord.CoordCube;
+import cube.model.cubie.CubieCube;
+import cube.model.cubie.PackedCube;
+import cube.model.face.FaceCube;
+import cube.moves.MoveTables;
+import cube.symmetry.SymmetryTables;
+import cube.pruning.PruningTables;
+import cube.solver.OptimalSolver;
+import cube.solver.SolveResult;
+import cube.solver.Solver;
+import cube.solver.TwoPhaseSolver;
+
+import java.util.Random;
+
+import static cube.model.cubie.Defs.*;
+
+/**
+ * Benchmarks for the solver hot paths. Runs against the pre-generated tables in the
+ * working directory, so start it from the directory holding the table files.
+ *
+ * Usage: SolverBenchmarks [filter] [--quick]
+ *   filter   only run benchmarks whose name contains this string
+ *   --quick  fewer and shorter iterations, for a smoke run
+ */
+public class SolverBenchmarks {
+
+    // The README benchmark cubes (optimal lengths 17, 17, 18, 18, 17, 18)
+    static final String[] README_CUBES = {
+        "ULFDUUBLDRFDRRUFUBRDBDFFFFLULDBDLDBLFRUFLBLRRRBLRBDUUB",
+        "BURRUFBDBUUUFRBLURDRLLFLDBDFDFLDBLFBLBRRLUFDRFRDLBFUDU",
+        "LBDBUBBDDFLFDRFLULRRRBFLRUFBRULDLRDBBRURLUUFDLDUUBFDFF",
+        "FULLUUUFDFLDBRDRRLFURDFLDBBRDURDFLRUUFLFLLBBBFBRRBDBUD",
+        "RLDUUDFBFUFRRRDDRDLLRRFBRUFUFLRDUBLLBBULLDLFBFFDBBUBDU",
+        "RDLLUBFFDFUBFRDBFUUURRFRDDLLFUUDLDLLUURDLBBRFDBBRBLFBR"
+    };
+
+    private static final int SAMPLES = 1 << 16;
+    private static final int MASK = SAMPLES - 1;
+
+    public static void main(String[] args) {
+        String filter = "";
+        boolean quick = false;
+        for (String a : args) {
+            if (a.equals("--quick")) quick = true;
+            else filter = a;
+        }
+
+        MoveTables.init();
+        SymmetryTables.init();
+        PruningTables.init();
+
+        Bench fast = quick ? new Bench(1, 3, 0.2) : new Bench(5, 10, 1.0);
+        Bench solves = quick ? new Bench(1, 3, 0) : new Bench(3, 10, 0);
+        Random rng = new Random(42);
+
+        // Run with -Dcube.optimal.tier=phasex24|ubig|full to compare the memory tiers
+        System.out.println();
+        System.out.println("Optimal tier: " + PruningTables.getOptimalTier());
+        System.out.println(String.format("%-48s %16s   %-14s", "Benchmark", "Score", "Error (99%)"));
+
+        // ---- Table lookups ----
+        if (PruningTables.hasUbig() && "lookup.getUbigMod3".contains(filter)) {
+            int[] tetra = new int[SAMPLES];
+            int[] idx = new int[SAMPLES];
+            for (int i = 0; i < SAMPLES; i++) {
+                tetra[i] = rng.nextInt(N_TETRA);
+                idx[i] = rng.nextInt(N_FLIPSLICE_CLASS * N_TWIST);
+            }
+            int[] i0 = {0};
+            fast.throughput("lookup.getUbigMod3", () -> {
+                int i = i0[0]++ & MASK;
+                return PruningTables.getUbigMod3(tetra[i], idx[i]);
+            });
+        }
+
+        if (PruningTables.hasPhasex24() && "lookup.getFlipslicesortedTwistDepth3".contains(filter)) {
+            long[] idx = new long[SAMPLES];
+            for (int i = 0; i < SAMPLES; i++) {
+                idx[i] = (long) (rng.nextDouble() * ((long) N_FLIPSLICESORTED_CLASS * N_TWIST));
+            }
+            int[] i0 = {0};
+            fast.throughput("lookup.getFlipslicesortedTwistDepth3", () ->
+                PruningTables.getFlipslicesortedTwistDepth3(idx[i0[0]++ & MASK]));
+        }
+
+        // ---- Cube representations ----
+        String[] facelets = new String[1024];
+        CubieCube[] cubies = new CubieCube[1024];
+        for (int i = 0; i < 1024; i++) {
+            cubies[i] = new CubieCube();
+            cubies[i].randomize();
+            facelets[i] = cubies[i].toFaceletCube().toString();
+        }
+
+        if ("cube.FaceCube.fromString+toCubieCube".contains(filter)) {
+            int[] i0 = {0};
+            fast.throughput("cube.FaceCube.fromString+toCubieCube", () -> {
+                FaceCube fc = new FaceCube();
+                fc.fromString(facelets[i0[0]++ & 1023]);
+                return fc.toCubieCube().getCorners();
+            });
+        }
+
+        if ("cube.CoordCube.<init>".contains(filter)) {
+            int[] i0 = {0};
+            fast.throughput("cube.CoordCube.<init>", () ->
+                new CoordCube(cubies[i0[0]++ & 1023]).getUdPhasex24Depth());
+        }
+
+        PackedCube[] packed = new PackedCube[1024];
+        for (int i = 0; i < 1024; i++) packed[i] = PackedCube.of(cubies[i]);
+
+        if ("cube.CubieCube.multiply".contains(filter)) {
+            int[] i0 = {0};
+            CubieCube acc = new CubieCube();
+            fast.throughput("cube.CubieCube.multiply", () -> {
+                acc.multiply(cubies[i0[0]++ & 1023]);
+                return acc.getCp(0);
+            });
+        }
+
+        if ("cube.PackedCube.multiply".contains(filter)) {
+            int[] i0 = {0};
+            PackedCube[] acc = {PackedCube.SOLVED};
+            fast.throughput("cube.PackedCube.multiply", () -> {
+                acc[0] = acc[0].multiply(packed[i0[0]++ & 1023]);
+                return acc[0].cp(0);
+            });
+        }
+
+        if ("cube.CubieCube.symmetries".contains(filter)) {
+            int[] i0 = {0};
+            fast.throughput("cube.CubieCube.symmetries", () -> cubies[i0[0]++ & 1023].symmetries().size());
+        }
+
+        // ---- Solvers ----
+        Solver twoPhase = new TwoPhaseSolver();
+        for (int target : new int[] {20, 19, 18}) {
+            String name = "solve.TwoPhaseSolver.latency[len<=" + target + "]";
+            if (!name.contains(filter)) continue;
+            int[] i0 = {0};
+            solves.latency(name, () -> {
+                SolveResult r = twoPhase.solve(README_CUBES[i0[0]++ % README_CUBES.length], target, 10.0);
+                return r.getMoveCount();
+            });
+        }
+
+        Solver optimal = new OptimalSolver();
+        for (int c = 0; c < 2; c++) {
+            String name = "solve.OptimalSolver.search[cube " + (c + 1) + "]";
+            if (!name.contains(filter)) continue;
+            String cube = README_CUBES[c];
+            solves.rate(name, "nodes", () -> optimal.solve(cube).getNodeCount());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package cube.app;
+
+import cube.pruning.OptimalTier;
+import cube.pruning.PruningTables;
+import cube.progress.ConsoleProgress;
+import cube.progress.Progress;
+import cube.solver.Solver;
+import cube.solver.SolveResult;
+import cube.solver.OptimalSolver;
+import cube.solver.SmartOptimalSolver;
+import cube.solver.TwoPhaseSolver;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-interactive batch entry point.
+ * Loads the tables of the chosen solver once, reads one facelet string per line from a file (or stdin),
+ * solves the cubes concurrently and streams one result line per cube to the output
+ * file as soon as it is solved. Ends with a throughput and latency summary.
+ *
+ * Usage: BatchSolver [options] &lt;input file | -&gt; &lt;output file&gt;
+ *   --mode fast|optimal|smart   solver to use (default fast)
+ *   --threads N           number of cubes solved at the same time
+ *                         (default: all cores for fast, 1 for optimal and smart which are already parallel)
+ *   --length L            target length for the fast solver (default 20)
+ *   --timeout T           timeout per cube in seconds (default: solver default)
+ *   --tier phasex24|ubig|full   optimal solver heuristics to load (default: full, see OptimalTier)
+ *   --memory SIZE         pick the fastest tier that fits a memory budget such as 2g
+ *   --warmup              page in all pruning tables before the first cube (see PruningTables.warmUp)
+ *   --verbose             print table loading and search progress to stderr
+ *
+ * Output lines are tab separated: index, cube, length, time in ms, nodes, solution or error message.
+ * Blank lines and lines starting with '#' in the input are skipped.
+ */
+public class BatchSolver {
+
+    public static void main(String[] args) {
+        String mode = "fast";
+        int threads = -1;
+        int length = -1;
+        double timeout = -1;
+        boolean verbose = false;
+        boolean warmup = false;
+        List<String> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode": mode = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--length": length = Integer.parseInt(args[++i]); break;
+                case "--timeout": timeout = Double.parseDouble(args[++i]); break;
+                case "--tier": PruningTables.setOptimalTier(OptimalTier.valueOf(args[++i].toUpperCase())); break;
+                case "--memory": PruningTables.setOptimalTier(OptimalTier.forBudget(OptimalTier.parseSize(args[++i]))); break;
+                case "--warmup": warmup = true; break;
+                case "--verbose": verbose = true; break;
+                default: files.add(args[i]);
+            }
+        }
+        if (files.size() != 2 || !(mode.equals("fast") || mode.equals("optimal") || mode.equals("smart"))) {
+            System.err.println("Usage: BatchSolver [--mode fast|optimal|smart] [--threads N] [--length L] [--timeout T] [--tier phasex24|ubig|full | --memory SIZE] [--warmup] [--verbose] <input file | -> <output file>");
+            System.exit(2);
+        }
+
+        boolean optimal = !mode.equals("fast");
+        Solver solver = mode.equals("smart") ? new SmartOptimalSolver() : optimal ? new OptimalSolver() : new TwoPhaseSolver();
+        if (threads <= 0) threads = optimal ? 1 : Runtime.getRuntime().availableProcessors();
+        if (length <= 0) length = optimal ? 100 : 20;
+        if (timeout <= 0) timeout = optimal ? 600.0 : 3.0;
+
+        if (verbose) Progress.setListener(new ConsoleProgress(System.err));
+
+        long start = System.currentTimeMillis();
+        solver.loadTables();
+        System.out.println("Time taken for initialization: " + (System.currentTimeMillis() - start) / 1000.0 + "s");
+        if (warmup) {
+            System.out.println("Time taken for warm-up: " + PruningTables.warmUp() / 1000.0 + "s");
+        }
+        System.out.println("Using: " + solver.getName() + " with " + threads + " concurrent solves" +
+                           (optimal ? ", optimal tier " + PruningTables.getOptimalTier() : ""));
+
+        try (BufferedReader in = openInput(files.get(0));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(files.get(1)), StandardCharsets.UTF_8))) {
+            run(solver, in, out, threads, length, timeout);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static BufferedReader openInput(String name) throws IOException {
+        InputStream is = name.equals("-") ? System.in : new FileInputStream(name);
+        return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Solve every cube read from in, writing a result line per cube to out as it finishes.
+     */
+    private static void run(Solver solver, BufferedReader in, BufferedWriter out,
+                            int threads, int length, double timeout) throws IOException {
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong totalNodes = new AtomicLong(0);
+        AtomicInteger failures = new AtomicInteger(0);
+        long batchStart = System.nanoTime();
+
+        int index = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String cube = line.trim();
+            if (cube.isEmpty() || cube.startsWith("#")) continue;
+            final int n = index++;
+            exec.submit(() -> {
+                long t0 = System.nanoTime();
+                String row;
+                try {
+                    SolveResult result = solver.solve(cube, length, timeout);
+                    long elapsed = System.nanoTime() - t0;
+
+                    latencies.add(elapsed);
+                    totalNodes.addAndGet(result.getNodeCount());
+                    if (!result.isSuccess()) failures.incrementAndGet();
+
+                    row = n + "\t" + cube + "\t" + (result.isSuccess() ? result.getMoveCount() : -1) + "\t" +
+                          String.format("%.3f", elapsed / 1e6) + "\t" + result.getNodeCount() + "\t" + result.getMessage();
+                } catch (Throwable e) {
+                    // A failed solve, including an Error such as OutOfMemoryError or StackOverflowError,
+                    // still gets its row and counts instead of vanishing into the unread Future
+                    long elapsed = System.nanoTime() - t0;
+                    latencies.add(elapsed);
+                    failures.incrementAndGet();
+                    row = n + "\t" + cube + "\t-1\t" + String.format("%.3f", elapsed / 1e6) + "\t0\t" + "Error: " + e;
+                }
+                synchronized (out) {
+                    try {
+                        out.write(row);
+                        out.newLine();
+                        out.flush();
+                    } catch (IOException e) {
+                        System.err.println("Error writing result " + n + ": " + e.getMessage());
+                    }
+                }
+            });
+        }
+
+        exec.shutdown();
+        try {
+            exec.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+            exec.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        double wall = (System.nanoTime() - batchStart) / 1e9;
+        printSummary(latencies, wall, totalNodes.get(), failures.get());
+    }
+
+    private static void printSummary(List<Long> latencies, double wall, long nodes, int failures) {
+        long[] sorted;
+        synchronized (latencies) {
+            sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        int n = sorted.length;
+        System.out.println("Solved " + n + " cubes (" + failures + " failed) in " + String.format("%.2f", wall) + " s");
+        if (n == 0) return;
+
+        System.out.println("Throughput: " + String.format("%.2f", n / wall) + " cubes/s, " +
+                           (long) (nodes / wall) + " nodes/s");
+        System.out.println("Latency (ms): p50=" + ms(percentile(sorted, 50)) + " p90=" + ms(percentile(sorted, 90)) +
+                           " p99=" + ms(percentile(sorted, 99)) + " max=" + ms(sorted[n - 1]));
+    }
+
+    // Nearest-rank percentile of an ascending array
+    private static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static String ms(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
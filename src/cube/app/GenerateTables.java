@@ -0,0 +1,38 @@
+package cube.app;
+
+import cube.moves.MoveTables;
+import cube.symmetry.SymmetryTables;
+import cube.pruning.PruningTables;
+import cube.progress.ConsoleProgress;
+import cube.progress.Progress;
+import cube.tables.TableFile;
+
+/**
+ * Explicit table generation step.
+ * Builds every move, symmetry and pruning table that is missing or invalid in the given directory
+ * and verifies the ones that already exist. The result can then be shared read-only by any number
+ * of solver processes started with -Dcube.tables.dir=DIR -Dcube.tables.readonly=true.
+ *
+ * Usage: GenerateTables [directory]   (default: the configured table directory)
+ */
+public class GenerateTables {
+
+    public static void main(String[] args) {
+        if (args.length > 1) {
+            System.err.println("Usage: GenerateTables [directory]");
+            System.exit(2);
+        }
+        if (args.length == 1) TableFile.setDirectory(args[0]);
+        TableFile.setReadOnly(false);
+        Progress.setListener(new ConsoleProgress(System.out));
+        System.out.println("Generating tables in " + TableFile.getDirectory().toAbsolutePath());
+
+        long start = System.currentTimeMillis();
+        // Loading checks only the headers of mapped tables; their data is checked here, once
+        PruningTables.verifyMappedTables();
+        MoveTables.init();
+        SymmetryTables.init();
+        PruningTables.init();
+        System.out.println("All tables present and verified in " + (System.currentTimeMillis() - start) / 1000.0 + "s");
+    }
+}
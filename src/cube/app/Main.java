@@ -2,12 +2,13 @@ package cube.app;
 
 import cube.model.face.*;
 import cube.model.cubie.*;
-import cube.moves.MoveTables;
-import cube.symmetry.SymmetryTables;
-import cube.pruning.PruningTables;
+import cube.progress.ConsoleProgress;
+import cube.progress.Progress;
 import cube.solver.Solver;
 import cube.solver.SolveResult;
 import cube.solver.OptimalSolver;
+import cube.solver.SmartOptimalSolver;
+import cube.solver.SolveControl;
 import cube.solver.TwoPhaseSolver;
 
 import java.util.Scanner;
@@ -28,10 +29,11 @@ public class Main {
 
     public static void main(String[] args) {
         System.out.println("=== Java Rubik's Cube Solver ===\n");
+        Progress.setListener(new ConsoleProgress(System.out));
 
         // Initialize all tables
         long start = System.currentTimeMillis();
-        initAllTables();
+        initTables();
         double elapsed = (System.currentTimeMillis() - start) / 1000.0;
         System.out.println("Time taken for initialization: " + elapsed + "s\n");
 
@@ -61,25 +63,17 @@ public class Main {
     }
 
     /**
-     * Initialize all lookup tables (move tables, symmetry tables, pruning tables).
+     * Load the tables of the fast (two-phase) solver. The much larger optimal solver tables
+     * are loaded the first time Optimal or Smart Optimal mode is chosen.
      */
-    private static void initAllTables() {
+    private static void initTables() {
         System.out.println("Initializing tables...");
 
         long start = System.currentTimeMillis();
-        MoveTables.init();
-        long moveTime = System.currentTimeMillis() - start;
+        new TwoPhaseSolver().loadTables();
+        long fastTime = System.currentTimeMillis() - start;
 
-        start = System.currentTimeMillis();
-        SymmetryTables.init();
-        long symTime = System.currentTimeMillis() - start;
-
-        start = System.currentTimeMillis();
-        PruningTables.init();
-        long prunTime = System.currentTimeMillis() - start;
-
-        System.out.println("Tables initialized: Move=" + moveTime + "ms, Symmetry=" + symTime + 
-                           "ms, Pruning=" + prunTime + "ms");
+        System.out.println("Two-phase tables initialized in " + fastTime + "ms (optimal tables load on first use)");
     }
 
     /**
@@ -247,62 +241,17 @@ public class Main {
 
     /**
      * Solve using the smart optimal approach.
-     * First finds a good solution quickly, then tries to improve it.
+     * The fast solver's solutions bound the optimal search, which stops as soon as it proves one optimal.
      */
     private static void solveSmartOptimal(String cubeString) {
-        int limit = 18;
-        
-        // First, find an initial solution using the fast solver
-        long start = System.currentTimeMillis();
-        Solver fastSolver = new TwoPhaseSolver();
-        SolveResult result = fastSolver.solve(cubeString, limit, 10);
-        double t = (System.currentTimeMillis() - start) / 1000.0;
-        
-        int solutionLength = result.getMoveCount();
-        System.out.println("Found Initial Solution in " + t + "s : " + result.getMessage());
-
-        // Try to optimize while solution is long and time is short
-        while (solutionLength > 17 && t < 1) {
-            System.out.print("Optimizing the Solution...");
-            System.out.flush();
-            limit = solutionLength - 1;
-            
-            start = System.currentTimeMillis();
-            result = fastSolver.solve(cubeString, limit, 10);
-            t = (System.currentTimeMillis() - start) / 1000.0;
-            
-            if (result.getMoveCount() == limit) {
-                System.out.println("\nOptimization Successful in " + t + "s : " + result.getMessage());
-                solutionLength = result.getMoveCount();
-            } else {
-                System.out.println("Optimization Failed in " + t + "s");
-                break;
-            }
-        }
+        SmartOptimalSolver solver = new SmartOptimalSolver();
+        System.out.println("Using: " + solver.getName() + " - " + solver.getDescription());
 
-        // Try harder with increasing timeouts
-        double ti = 10;
-        while (solutionLength > 20 && t <= 100) {
-            ti *= 2;
-            start = System.currentTimeMillis();
-            result = fastSolver.solve(cubeString, 20, Math.min(ti, 100.0));
-            t = (System.currentTimeMillis() - start) / 1000.0;
-            
-            if (result.getMoveCount() <= 20) {
-                System.out.println("Optimization Successful in " + t + "s : " + result.getMessage());
-                solutionLength = result.getMoveCount();
-            } else {
-                System.out.println("Optimization Failed in " + t + "s");
-            }
-        }
+        SolveResult result = solver.solve(cubeString, 100, 600, new SolveControl(), (solution, ms) ->
+            System.out.println("Found Solution in " + ms / 1000.0 + "s : " + solution.getMessage()));
 
-        // Finally, try to find optimal or prove optimality
-        System.out.println("Finding Better Solution / Proving Optimality ...");
-        Solver optimalSolver = new OptimalSolver();
-        result = optimalSolver.solve(cubeString, solutionLength, 600);
-        
         if (result.isSuccess()) {
-            System.out.println("Optimal Solution Found : " + result.getMessage());
+            System.out.println("Final Solution : " + result.getMessage());
         } else {
             System.out.println(result.getMessage());
         }
@@ -10,13 +10,15 @@ import java.util.Map;
 
 import cube.model.face.FaceCube;
 import cube.model.cubie.CubieCube;
-import cube.moves.MoveTables;
-import cube.symmetry.SymmetryTables;
-import cube.pruning.PruningTables;
+import cube.progress.ConsoleProgress;
+import cube.progress.Progress;
+import cube.progress.ProgressListener;
 import cube.solver.Solver;
 import cube.solver.SolveResult;
 import cube.solver.TwoPhaseSolver;
 import cube.solver.OptimalSolver;
+import cube.solver.SmartOptimalSolver;
+import cube.solver.SolveControl;
 
 /**
  * Rubik's Cube Solver GUI.
@@ -49,6 +51,7 @@ public class RubiksCubeGUI extends JFrame {
     private java.util.List<Integer> lastSolutionMoves = new ArrayList<>();
     private String lastScramble = "";
     private boolean solutionValid = false;
+    private boolean optimalTablesLoaded = false;
 
     // Color mapping: index matches face order (U, R, F, D, L, B)
     // Standard color scheme (White top, Green front): U=White, R=Red, F=Green, D=Yellow, L=Orange, B=Blue
@@ -443,6 +446,12 @@ public class RubiksCubeGUI extends JFrame {
         // Save the scramble state for simulation
         lastScramble = currentState;
 
+        // The optimal solver's tables (several GB) are only loaded once a mode needs them
+        if (!"Fast".equals(mode) && !optimalTablesLoaded) {
+            initializeTables(this, new OptimalSolver());
+            optimalTablesLoaded = true;
+        }
+
         // Disable button during solve
         solveButton.setEnabled(false);
         simulateButton.setEnabled(false);
@@ -533,47 +542,22 @@ public class RubiksCubeGUI extends JFrame {
     
     private SmartOptimalResult solveSmartOptimalWithResult(String cubeString) {
         long totalStart = System.currentTimeMillis();
-        StringBuilder log = new StringBuilder();
-        
-        // First, find an initial solution using the fast solver (target 18 moves, 5s limit)
-        long start = System.currentTimeMillis();
-        Solver fastSolver = new TwoPhaseSolver();
-        SolveResult result = fastSolver.solve(cubeString, 18, 5);
-        double t = (System.currentTimeMillis() - start) / 1000.0;
-        
-        int solutionLength = result.getMoveCount();
-        log.append("Initial: ").append(result.getMessage()).append(" (").append(String.format("%.2f", t)).append("s)\n");
-
-        // Try to improve to 17 moves only once, only if initial solve took less than 1s
-        if (solutionLength == 18 && t < 1) {
-            start = System.currentTimeMillis();
-            SolveResult newResult = fastSolver.solve(cubeString, 17, 2);
-            double t2 = (System.currentTimeMillis() - start) / 1000.0;
-            
-            if (newResult.getMoveCount() == 17) {
-                result = newResult;
-                solutionLength = 17;
-                log.append("Optimized to 17: ").append(result.getMessage()).append(" (").append(String.format("%.2f", t2)).append("s)\n");
-            } else {
-                log.append("Could not optimize to 17 moves (").append(String.format("%.2f", t2)).append("s)\n");
-            }
-        }
+        StringBuffer log = new StringBuffer();
 
-        // Try optimal solver for final optimization
-        log.append("Finding optimal...\n");
-        Solver optimalSolver = new OptimalSolver();
-        SolveResult optResult = optimalSolver.solve(cubeString, solutionLength, 60);
-        
-        if (optResult.isSuccess()) {
-            result = optResult;
-            log.append("Optimal: ").append(result.getMessage());
+        // Fast solutions bound the optimal search; give up on proving optimality after 60s
+        SmartOptimalSolver solver = new SmartOptimalSolver();
+        SolveResult result = solver.solve(cubeString, 100, 60, new SolveControl(), (solution, ms) ->
+            log.append("Found: ").append(solution.getMessage()).append(" (").append(String.format("%.2f", ms / 1000.0)).append("s)\n"));
+
+        if (result.isSuccess()) {
+            log.append("Final: ").append(result.getMessage());
         } else {
-            log.append(optResult.getMessage());
+            log.append(result.getMessage());
         }
-        
+
         double totalElapsed = (System.currentTimeMillis() - totalStart) / 1000.0;
         log.append("\n\nTotal time taken: ").append(String.format("%.3f", totalElapsed)).append("s");
-        
+
         return new SmartOptimalResult(result, log.toString());
     }
 
@@ -1007,9 +991,9 @@ public class RubiksCubeGUI extends JFrame {
     }
 
     /**
-     * Initialize all solver tables with a progress dialog.
+     * Load the tables of the given solver with a progress dialog.
      */
-    public static void initializeTables(JFrame parent) {
+    public static void initializeTables(JFrame parent, Solver solver) {
         JDialog dialog = new JDialog(parent, "Initializing", true);
         JProgressBar progressBar = new JProgressBar();
         progressBar.setIndeterminate(true);
@@ -1029,15 +1013,26 @@ public class RubiksCubeGUI extends JFrame {
         SwingWorker<Void, String> worker = new SwingWorker<>() {
             @Override
             protected Void doInBackground() {
-                publish("Loading Move Tables...");
-                MoveTables.init();
-                
-                publish("Loading Symmetry Tables...");
-                SymmetryTables.init();
-                
-                publish("Loading Pruning Tables...");
-                PruningTables.init();
-                
+                // Show each table step in the dialog while loading; afterwards keep logging to the console
+                ConsoleProgress console = new ConsoleProgress(System.out);
+                Progress.setListener(new ProgressListener() {
+                    @Override
+                    public void message(String text) {
+                        console.message(text);
+                        publish(text);
+                    }
+
+                    @Override
+                    public void tick() {
+                        console.tick();
+                    }
+                });
+                try {
+                    publish("Loading " + solver.getName() + " tables...");
+                    solver.loadTables();
+                } finally {
+                    Progress.setListener(console);
+                }
                 return null;
             }
 
@@ -1063,8 +1058,8 @@ public class RubiksCubeGUI extends JFrame {
             // Create the GUI frame first (but don't show yet)
             RubiksCubeGUI gui = new RubiksCubeGUI();
             
-            // Initialize tables with progress dialog
-            initializeTables(gui);
+            // Load the fast solver's tables with progress dialog; the optimal ones follow on first use
+            initializeTables(gui, new TwoPhaseSolver());
             
             // Show the main GUI
             gui.setVisible(true);
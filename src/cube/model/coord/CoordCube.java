@@ -1,6 +1,7 @@
 package cube.model.coord;
 
 import cube.model.cubie.CubieCube;
+import cube.model.cubie.PackedCube;
 import cube.symmetry.SymmetryTables;
 import cube.moves.MoveTables;
 import cube.pruning.PruningTables;
@@ -47,12 +48,14 @@ public class CoordCube extends BaseCoordCube {
     protected int corner_depth;
 
     // ========== Getters for UD-axis (using parent's protected fields) ==========
+    // get*Flipslicesorted() is the sym-coordinate classidx << 4 | sym, see SymmetryTables.flipslicesortedMove
 
     public int getUdTwist() { return twist; }
     public int getUdFlip() { return flip; }
     public int getUdSliceSorted() { return sliceSorted; }
     public int getUdTetra() { return UD_tetra; }
     public int getUdPhasex24Depth() { return UD_phasex24_depth; }
+    public int getUdFlipslicesorted() { return UD_flipslicesorted_clsidx << 4 | UD_flipslicesorted_sym; }
 
     // ========== Getters for RL-axis ==========
 
@@ -61,6 +64,7 @@ public class CoordCube extends BaseCoordCube {
     public int getRlSliceSorted() { return RL_slice_sorted; }
     public int getRlTetra() { return RL_tetra; }
     public int getRlPhasex24Depth() { return RL_phasex24_depth; }
+    public int getRlFlipslicesorted() { return RL_flipslicesorted_clsidx << 4 | RL_flipslicesorted_sym; }
 
     // ========== Getters for FB-axis ==========
 
@@ -69,6 +73,7 @@ public class CoordCube extends BaseCoordCube {
     public int getFbSliceSorted() { return FB_slice_sorted; }
     public int getFbTetra() { return FB_tetra; }
     public int getFbPhasex24Depth() { return FB_phasex24_depth; }
+    public int getFbFlipslicesorted() { return FB_flipslicesorted_clsidx << 4 | FB_flipslicesorted_sym; }
 
     // ========== Other getters ==========
 
@@ -100,10 +105,7 @@ public class CoordCube extends BaseCoordCube {
 
         // RL-axis: 120° rotation around URF-DBL, then conjugate cc
         {
-            CubieCube ss = new CubieCube(SymmetryTables.symCube[16].getCpArray(), SymmetryTables.symCube[16].getCoArray(),
-                                         SymmetryTables.symCube[16].getEpArray(), SymmetryTables.symCube[16].getEoArray());
-            ss.multiply(cc);
-            ss.multiply(SymmetryTables.symCube[32]);
+            PackedCube ss = PackedCube.of(cc).conjugate(16);
             RL_twist = ss.getTwist();
             RL_flip = ss.getFlip();
             RL_slice_sorted = ss.getSliceSorted();
@@ -112,39 +114,39 @@ public class CoordCube extends BaseCoordCube {
 
         // FB-axis: 240° rotation (inverse of above)
         {
-            CubieCube ss = new CubieCube(SymmetryTables.symCube[32].getCpArray(), SymmetryTables.symCube[32].getCoArray(),
-                                         SymmetryTables.symCube[32].getEpArray(), SymmetryTables.symCube[32].getEoArray());
-            ss.multiply(cc);
-            ss.multiply(SymmetryTables.symCube[16]);
+            PackedCube ss = PackedCube.of(cc).conjugate(32);
             FB_twist = ss.getTwist();
             FB_flip = ss.getFlip();
             FB_slice_sorted = ss.getSliceSorted();
             FB_tetra = ss.getTetra();
         }
 
+        // Exact corner distance
+        corner_depth = PruningTables.cornerDepth[corners] & 0xFF;
+
+        // Without the phasex24 heuristic (see OptimalTier) its sym-tables are not loaded and the depths stay 0
+        if (!PruningTables.hasPhasex24()) return;
+
         // Symmetry-reduced (flip, slice_sorted) per axis
         int idx = N_FLIP * sliceSorted + flip;
-        UD_flipslicesorted_clsidx = SymmetryTables.flipslicesortedClassidx[idx];
-        UD_flipslicesorted_sym = SymmetryTables.flipslicesortedSym[idx] & 0xFF;
+        UD_flipslicesorted_clsidx = SymmetryTables.classidx(SymmetryTables.flipslicesortedClassSym[idx]);
+        UD_flipslicesorted_sym = SymmetryTables.sym(SymmetryTables.flipslicesortedClassSym[idx]);
         UD_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[UD_flipslicesorted_clsidx];
 
         idx = N_FLIP * RL_slice_sorted + RL_flip;
-        RL_flipslicesorted_clsidx = SymmetryTables.flipslicesortedClassidx[idx];
-        RL_flipslicesorted_sym = SymmetryTables.flipslicesortedSym[idx] & 0xFF;
+        RL_flipslicesorted_clsidx = SymmetryTables.classidx(SymmetryTables.flipslicesortedClassSym[idx]);
+        RL_flipslicesorted_sym = SymmetryTables.sym(SymmetryTables.flipslicesortedClassSym[idx]);
         RL_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[RL_flipslicesorted_clsidx];
 
         idx = N_FLIP * FB_slice_sorted + FB_flip;
-        FB_flipslicesorted_clsidx = SymmetryTables.flipslicesortedClassidx[idx];
-        FB_flipslicesorted_sym = SymmetryTables.flipslicesortedSym[idx] & 0xFF;
+        FB_flipslicesorted_clsidx = SymmetryTables.classidx(SymmetryTables.flipslicesortedClassSym[idx]);
+        FB_flipslicesorted_sym = SymmetryTables.sym(SymmetryTables.flipslicesortedClassSym[idx]);
         FB_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[FB_flipslicesorted_clsidx];
 
         // Cached depths reconstructed from mod-3 pruning
         UD_phasex24_depth = getPhasex24Depth(0);
         RL_phasex24_depth = getPhasex24Depth(1);
         FB_phasex24_depth = getPhasex24Depth(2);
-
-        // Exact corner distance
-        corner_depth = PruningTables.cornerDepth[corners] & 0xFF;
     }
 
     // ========== Abstract method implementations (polymorphism) ==========
@@ -178,11 +180,6 @@ public class CoordCube extends BaseCoordCube {
         sliceSorted = MoveTables.sliceSortedMove[N_MOVE * sliceSorted + m] & 0xFFFF;
         UD_tetra = MoveTables.tetraMove[N_MOVE * UD_tetra + m] & 0xFFFF;
 
-        int idx = N_FLIP * sliceSorted + flip;
-        UD_flipslicesorted_clsidx = SymmetryTables.flipslicesortedClassidx[idx];
-        UD_flipslicesorted_sym = SymmetryTables.flipslicesortedSym[idx] & 0xFF;
-        UD_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[UD_flipslicesorted_clsidx];
-
         // Conjugate move for RL axis (120° URF-DBL)
         m = SymmetryTables.conjMove[N_MOVE * 16 + m] & 0xFFFF;
         RL_twist = MoveTables.twistMove[N_MOVE * RL_twist + m] & 0xFFFF;
@@ -190,11 +187,6 @@ public class CoordCube extends BaseCoordCube {
         RL_slice_sorted = MoveTables.sliceSortedMove[N_MOVE * RL_slice_sorted + m] & 0xFFFF;
         RL_tetra = MoveTables.tetraMove[N_MOVE * RL_tetra + m] & 0xFFFF;
 
-        idx = N_FLIP * RL_slice_sorted + RL_flip;
-        RL_flipslicesorted_clsidx = SymmetryTables.flipslicesortedClassidx[idx];
-        RL_flipslicesorted_sym = SymmetryTables.flipslicesortedSym[idx] & 0xFF;
-        RL_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[RL_flipslicesorted_clsidx];
-
         // Conjugate again for FB axis (240° total)
         m = SymmetryTables.conjMove[N_MOVE * 16 + m] & 0xFFFF;
         FB_twist = MoveTables.twistMove[N_MOVE * FB_twist + m] & 0xFFFF;
@@ -202,9 +194,22 @@ public class CoordCube extends BaseCoordCube {
         FB_slice_sorted = MoveTables.sliceSortedMove[N_MOVE * FB_slice_sorted + m] & 0xFFFF;
         FB_tetra = MoveTables.tetraMove[N_MOVE * FB_tetra + m] & 0xFFFF;
 
+        // The flipslicesorted sym-tables are only loaded with the phasex24 heuristic
+        if (!PruningTables.hasPhasex24()) return;
+
+        int idx = N_FLIP * sliceSorted + flip;
+        UD_flipslicesorted_clsidx = SymmetryTables.classidx(SymmetryTables.flipslicesortedClassSym[idx]);
+        UD_flipslicesorted_sym = SymmetryTables.sym(SymmetryTables.flipslicesortedClassSym[idx]);
+        UD_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[UD_flipslicesorted_clsidx];
+
+        idx = N_FLIP * RL_slice_sorted + RL_flip;
+        RL_flipslicesorted_clsidx = SymmetryTables.classidx(SymmetryTables.flipslicesortedClassSym[idx]);
+        RL_flipslicesorted_sym = SymmetryTables.sym(SymmetryTables.flipslicesortedClassSym[idx]);
+        RL_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[RL_flipslicesorted_clsidx];
+
         idx = N_FLIP * FB_slice_sorted + FB_flip;
-        FB_flipslicesorted_clsidx = SymmetryTables.flipslicesortedClassidx[idx];
-        FB_flipslicesorted_sym = SymmetryTables.flipslicesortedSym[idx] & 0xFF;
+        FB_flipslicesorted_clsidx = SymmetryTables.classidx(SymmetryTables.flipslicesortedClassSym[idx]);
+        FB_flipslicesorted_sym = SymmetryTables.sym(SymmetryTables.flipslicesortedClassSym[idx]);
         FB_flipslicesorted_rep = SymmetryTables.flipslicesortedRep[FB_flipslicesorted_clsidx];
     }
 
@@ -237,8 +242,8 @@ public class CoordCube extends BaseCoordCube {
                 int flip1 = MoveTables.flipMove[N_MOVE * flip_ + m] & 0xFFFF;
                 int slicesorted1 = MoveTables.sliceSortedMove[N_MOVE * slicesorted_ + m] & 0xFFFF;
                 int fs1 = N_FLIP * slicesorted1 + flip1;
-                int classidx1 = SymmetryTables.flipslicesortedClassidx[fs1];
-                int sym1 = SymmetryTables.flipslicesortedSym[fs1] & 0xFF;
+                int classidx1 = SymmetryTables.classidx(SymmetryTables.flipslicesortedClassSym[fs1]);
+                int sym1 = SymmetryTables.sym(SymmetryTables.flipslicesortedClassSym[fs1]);
                 if (PruningTables.getFlipslicesortedTwistDepth3(
                         (long) N_TWIST * classidx1 + (SymmetryTables.twistConj[(twist1 << 4) + sym1] & 0xFFFF)) == depthMod3 - 1) {
                     twist_ = twist1;
@@ -255,6 +260,8 @@ public class CoordCube extends BaseCoordCube {
 
     // Get ubig depth for the given direction (0=UD, 1=RL, 2=FB)
     public int getUbigDepth(int direction) {
+        if (!PruningTables.hasUbig()) return 0;
+
         int twist_, flip_, slicesorted_, tetra;
         if (direction == 0) {
             twist_ = twist; flip_ = flip; slicesorted_ = sliceSorted; tetra = UD_tetra;
@@ -266,8 +273,8 @@ public class CoordCube extends BaseCoordCube {
 
         int slice = slicesorted_ / N_PERM_4;
         int fs = N_FLIP * slice + flip_;
-        int clsidx = SymmetryTables.flipsliceClassidx[fs] & 0xFFFF;
-        int sym = SymmetryTables.flipsliceSym[fs] & 0xFF;
+        int clsidx = SymmetryTables.classidx(SymmetryTables.flipsliceClassSym[fs]);
+        int sym = SymmetryTables.sym(SymmetryTables.flipsliceClassSym[fs]);
 
         int twistC = SymmetryTables.twistConj[(twist_ << 4) + sym] & 0xFFFF;
         int tetraC = SymmetryTables.tetraConj[N_SYM_D4h * tetra + sym] & 0xFFFF;
@@ -286,8 +293,8 @@ public class CoordCube extends BaseCoordCube {
 
                 int slice1 = slicesorted1 / N_PERM_4;
                 int fs1 = N_FLIP * slice1 + flip1;
-                int clsidx1 = SymmetryTables.flipsliceClassidx[fs1] & 0xFFFF;
-                int sym1 = SymmetryTables.flipsliceSym[fs1] & 0xFF;
+                int clsidx1 = SymmetryTables.classidx(SymmetryTables.flipsliceClassSym[fs1]);
+                int sym1 = SymmetryTables.sym(SymmetryTables.flipsliceClassSym[fs1]);
 
                 int twist1C = SymmetryTables.twistConj[(twist1 << 4) + sym1] & 0xFFFF;
                 int tetra1C = SymmetryTables.tetraConj[N_SYM_D4h * tetra1 + sym1] & 0xFFFF;
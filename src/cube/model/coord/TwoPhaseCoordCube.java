@@ -75,12 +75,12 @@ public class TwoPhaseCoordCube extends BaseCoordCube {
 
         int slice = sliceSorted / N_PERM_4;
         int flipslice = N_FLIP * slice + flip;
-        flipsliceClassidx = SymmetryTables.flipsliceClassidx[flipslice] & 0xFFFF;
-        flipsliceSym = SymmetryTables.flipsliceSym[flipslice] & 0xFF;
+        flipsliceClassidx = SymmetryTables.classidx(SymmetryTables.flipsliceClassSym[flipslice]);
+        flipsliceSym = SymmetryTables.sym(SymmetryTables.flipsliceClassSym[flipslice]);
         flipsliceRep = SymmetryTables.flipsliceRep[flipsliceClassidx];
 
-        cornerClassidx = SymmetryTables.cornerClassidx[corners] & 0xFFFF;
-        cornerSym = SymmetryTables.cornerSym[corners] & 0xFF;
+        cornerClassidx = SymmetryTables.classidx(SymmetryTables.cornerClassSym[corners]);
+        cornerSym = SymmetryTables.sym(SymmetryTables.cornerClassSym[corners]);
         cornerRep = SymmetryTables.cornerRep[cornerClassidx] & 0xFFFF;
     }
 
@@ -101,12 +101,12 @@ public class TwoPhaseCoordCube extends BaseCoordCube {
 
         int slice = sliceSorted / N_PERM_4;
         int flipslice = N_FLIP * slice + flip;
-        flipsliceClassidx = SymmetryTables.flipsliceClassidx[flipslice] & 0xFFFF;
-        flipsliceSym = SymmetryTables.flipsliceSym[flipslice] & 0xFF;
+        flipsliceClassidx = SymmetryTables.classidx(SymmetryTables.flipsliceClassSym[flipslice]);
+        flipsliceSym = SymmetryTables.sym(SymmetryTables.flipsliceClassSym[flipslice]);
         flipsliceRep = SymmetryTables.flipsliceRep[flipsliceClassidx];
 
-        cornerClassidx = SymmetryTables.cornerClassidx[corners] & 0xFFFF;
-        cornerSym = SymmetryTables.cornerSym[corners] & 0xFF;
+        cornerClassidx = SymmetryTables.classidx(SymmetryTables.cornerClassSym[corners]);
+        cornerSym = SymmetryTables.sym(SymmetryTables.cornerClassSym[corners]);
         cornerRep = SymmetryTables.cornerRep[cornerClassidx] & 0xFFFF;
     }
 
@@ -143,12 +143,12 @@ public class TwoPhaseCoordCube extends BaseCoordCube {
         corners = MoveTables.cornersMove[N_MOVE * corners + m] & 0xFFFF;
 
         int flipslice = N_FLIP * (sliceSorted / N_PERM_4) + flip;
-        flipsliceClassidx = SymmetryTables.flipsliceClassidx[flipslice] & 0xFFFF;
-        flipsliceSym = SymmetryTables.flipsliceSym[flipslice] & 0xFF;
+        flipsliceClassidx = SymmetryTables.classidx(SymmetryTables.flipsliceClassSym[flipslice]);
+        flipsliceSym = SymmetryTables.sym(SymmetryTables.flipsliceClassSym[flipslice]);
         flipsliceRep = SymmetryTables.flipsliceRep[flipsliceClassidx];
 
-        cornerClassidx = SymmetryTables.cornerClassidx[corners] & 0xFFFF;
-        cornerSym = SymmetryTables.cornerSym[corners] & 0xFF;
+        cornerClassidx = SymmetryTables.classidx(SymmetryTables.cornerClassSym[corners]);
+        cornerSym = SymmetryTables.sym(SymmetryTables.cornerClassSym[corners]);
         cornerRep = SymmetryTables.cornerRep[cornerClassidx] & 0xFFFF;
     }
 
@@ -167,8 +167,8 @@ public class TwoPhaseCoordCube extends BaseCoordCube {
         int flip_ = flip;
         int twist_ = twist;
         int flipslice = N_FLIP * slice + flip_;
-        int classidx = SymmetryTables.flipsliceClassidx[flipslice] & 0xFFFF;
-        int sym = SymmetryTables.flipsliceSym[flipslice] & 0xFF;
+        int classidx = SymmetryTables.classidx(SymmetryTables.flipsliceClassSym[flipslice]);
+        int sym = SymmetryTables.sym(SymmetryTables.flipsliceClassSym[flipslice]);
         int depthMod3 = PruningTables.getFlipsliceTwistDepth3(
             N_TWIST * classidx + (SymmetryTables.twistConj[(twist_ << 4) + sym] & 0xFFFF));
         int depth = 0;
@@ -180,8 +180,8 @@ public class TwoPhaseCoordCube extends BaseCoordCube {
                 int flip1 = MoveTables.flipMove[N_MOVE * flip_ + m] & 0xFFFF;
                 int slice1 = (MoveTables.sliceSortedMove[N_MOVE * (slice * N_PERM_4) + m] & 0xFFFF) / N_PERM_4;
                 int flipslice1 = N_FLIP * slice1 + flip1;
-                int classidx1 = SymmetryTables.flipsliceClassidx[flipslice1] & 0xFFFF;
-                int sym1 = SymmetryTables.flipsliceSym[flipslice1] & 0xFF;
+                int classidx1 = SymmetryTables.classidx(SymmetryTables.flipsliceClassSym[flipslice1]);
+                int sym1 = SymmetryTables.sym(SymmetryTables.flipsliceClassSym[flipslice1]);
                 if (PruningTables.getFlipsliceTwistDepth3(
                         N_TWIST * classidx1 + (SymmetryTables.twistConj[(twist1 << 4) + sym1] & 0xFFFF)) == depthMod3 - 1) {
                     depth++;
@@ -198,8 +198,8 @@ public class TwoPhaseCoordCube extends BaseCoordCube {
 
     // Get distance to solved state in phase 2
     public static int getDepthPhase2(int corners_, int udEdges_) {
-        int classidx = SymmetryTables.cornerClassidx[corners_] & 0xFFFF;
-        int sym = SymmetryTables.cornerSym[corners_] & 0xFF;
+        int classidx = SymmetryTables.classidx(SymmetryTables.cornerClassSym[corners_]);
+        int sym = SymmetryTables.sym(SymmetryTables.cornerClassSym[corners_]);
         int depthMod3 = PruningTables.getCornersUdEdgesDepth3(
             N_UD_EDGES * classidx + (SymmetryTables.udEdgesConj[(udEdges_ << 4) + sym] & 0xFFFF));
         if (depthMod3 == 3) return 11;
@@ -217,8 +217,8 @@ public class TwoPhaseCoordCube extends BaseCoordCube {
             for (int m : phase2Moves) {
                 int corners1 = MoveTables.cornersMove[N_MOVE * corners_ + m] & 0xFFFF;
                 int udEdges1 = MoveTables.udEdgesMove[N_MOVE * udEdges_ + m] & 0xFFFF;
-                int classidx1 = SymmetryTables.cornerClassidx[corners1] & 0xFFFF;
-                int sym1 = SymmetryTables.cornerSym[corners1] & 0xFF;
+                int classidx1 = SymmetryTables.classidx(SymmetryTables.cornerClassSym[corners1]);
+                int sym1 = SymmetryTables.sym(SymmetryTables.cornerClassSym[corners1]);
                 if (PruningTables.getCornersUdEdgesDepth3(
                         N_UD_EDGES * classidx1 + (SymmetryTables.udEdgesConj[(udEdges1 << 4) + sym1] & 0xFFFF)) == depthMod3 - 1) {
                     depth++;
@@ -1,7 +1,6 @@
 package cube.model.cubie;
 
 import cube.model.face.*;
-import cube.symmetry.SymmetryTables;
 import java.util.ArrayList;
 import java.util.Random;
 
@@ -585,27 +584,14 @@ public class CubieCube {
     // Generate a list of the symmetries and antisymmetries of the cubie cube
     public ArrayList<Integer> symmetries() {
         ArrayList<Integer> s = new ArrayList<>();
-        CubieCube inv = new CubieCube();
-        this.invCubieCube(inv);
-        
+        PackedCube p = PackedCube.of(this);
+        PackedCube inv = p.inverse();
+
         for (int j = 0; j < N_SYM; j++) {
-            CubieCube c = new CubieCube(SymmetryTables.symCube[j].getCpArray(), SymmetryTables.symCube[j].getCoArray(), 
-                                        SymmetryTables.symCube[j].getEpArray(), SymmetryTables.symCube[j].getEoArray());
-            c.multiply(this);
-            c.multiply(SymmetryTables.symCube[SymmetryTables.invIdx[j]]);
-            if (this.equals(c)) {
-                s.add(j);
-            }
+            if (p.conjugate(j).equals(p)) s.add(j);
         }
-        
         for (int j = 0; j < N_SYM; j++) {
-            CubieCube c = new CubieCube(SymmetryTables.symCube[j].getCpArray(), SymmetryTables.symCube[j].getCoArray(), 
-                                        SymmetryTables.symCube[j].getEpArray(), SymmetryTables.symCube[j].getEoArray());
-            c.multiply(inv);
-            c.multiply(SymmetryTables.symCube[SymmetryTables.invIdx[j]]);
-            if (this.equals(c)) {
-                s.add(j + N_SYM);
-            }
+            if (inv.conjugate(j).equals(p)) s.add(j + N_SYM);
         }
         return s;
     }
@@ -0,0 +1,300 @@
+package cube.model.cubie;
+
+import cube.symmetry.SymmetryTables;
+
+import static cube.model.cubie.Defs.*;
+
+/**
+ * Immutable cubie-level cube packed into two longs, for cubie math in hot loops.
+ * Corners: 8 slots of 6 bits at bit 6*i, the corner in the low 3 bits and its orientation (0..5,
+ * mirrored states included as in CubieCube) in the high 3 bits.
+ * Edges: 12 slots of 5 bits at bit 5*i, the edge in the low 4 bits and its flip in bit 4.
+ * Multiplication, inversion, conjugation and the coordinates work on the longs directly and
+ * allocate nothing but the result. The static long-level methods allocate nothing at all.
+ */
+public final class PackedCube {
+
+    private static final long CORNER_MASK = 0x3f;
+    private static final long EDGE_MASK = 0x1f;
+
+    // Orientation of a corner after multiplication: ORI_MUL[6 * oriA + oriB], as in CubieCube.cornerMultiply
+    private static final byte[] ORI_MUL = new byte[36];
+    // Orientation of a corner in the inverse cube
+    private static final byte[] ORI_INV = {0, 2, 1, 3, 4, 5};
+    // BINOM[n][k] = nCr(n, k) for the coordinates
+    private static final int[][] BINOM = new int[12][5];
+
+    public static final PackedCube SOLVED;
+
+    // The 18 moves, and the 48 symmetries once SymmetryTables are built (see sym())
+    private static final PackedCube[] MOVES = new PackedCube[N_MOVE];
+    private static volatile PackedCube[] symCube;
+
+    private final long corners;
+    private final long edges;
+
+    static {
+        for (int a = 0; a < 6; a++) {
+            for (int b = 0; b < 6; b++) {
+                int ori;
+                if (a < 3 && b < 3) {
+                    ori = a + b;
+                    if (ori >= 3) ori -= 3;
+                } else if (a < 3) {
+                    ori = a + b;
+                    if (ori >= 6) ori -= 3;
+                } else if (b < 3) {
+                    ori = a - b;
+                    if (ori < 3) ori += 3;
+                } else {
+                    ori = a - b;
+                    if (ori < 0) ori += 3;
+                }
+                ORI_MUL[6 * a + b] = (byte) ori;
+            }
+        }
+        for (int n = 0; n < 12; n++) {
+            for (int k = 0; k < 5; k++) BINOM[n][k] = (int) nCr(n, k);
+        }
+        SOLVED = of(new CubieCube());
+        for (int m = 0; m < N_MOVE; m++) MOVES[m] = of(CubieCube.moveCube[m]);
+    }
+
+    private PackedCube(long corners, long edges) {
+        this.corners = corners;
+        this.edges = edges;
+    }
+
+    // ========== Conversion ==========
+
+    public static PackedCube of(CubieCube cc) {
+        long c = 0, e = 0;
+        for (int i = 0; i < 8; i++) c |= (long) (cc.getCp(i) | cc.getCo(i) << 3) << (6 * i);
+        for (int i = 0; i < 12; i++) e |= (long) (cc.getEp(i) | cc.getEo(i) << 4) << (5 * i);
+        return new PackedCube(c, e);
+    }
+
+    /** Wrap raw longs as produced by cornerBits()/edgeBits() or the static long-level methods. */
+    public static PackedCube of(long corners, long edges) {
+        return new PackedCube(corners, edges);
+    }
+
+    public CubieCube toCubieCube() {
+        CubieCube cc = new CubieCube();
+        for (int i = 0; i < 8; i++) {
+            int s = (int) (corners >>> (6 * i) & CORNER_MASK);
+            cc.setCp(i, s & 7);
+            cc.setCo(i, s >>> 3);
+        }
+        for (int i = 0; i < 12; i++) {
+            int s = (int) (edges >>> (5 * i) & EDGE_MASK);
+            cc.setEp(i, s & 15);
+            cc.setEo(i, s >>> 4);
+        }
+        return cc;
+    }
+
+    public long cornerBits() {
+        return corners;
+    }
+
+    public long edgeBits() {
+        return edges;
+    }
+
+    // ========== Cubie access ==========
+
+    public int cp(int i) { return (int) (corners >>> (6 * i)) & 7; }
+    public int co(int i) { return (int) (corners >>> (6 * i + 3)) & 7; }
+    public int ep(int i) { return (int) (edges >>> (5 * i)) & 15; }
+    public int eo(int i) { return (int) (edges >>> (5 * i + 4)) & 1; }
+
+    // ========== Group operations ==========
+
+    // Corners of a * b
+    public static long multiplyCorners(long a, long b) {
+        long r = 0;
+        for (int c = 0; c < 8; c++) {
+            int sb = (int) (b >>> (6 * c) & CORNER_MASK);
+            int sa = (int) (a >>> (6 * (sb & 7)) & CORNER_MASK);
+            r |= (long) ((sa & 7) | ORI_MUL[6 * (sa >>> 3) + (sb >>> 3)] << 3) << (6 * c);
+        }
+        return r;
+    }
+
+    // Edges of a * b
+    public static long multiplyEdges(long a, long b) {
+        long r = 0;
+        for (int e = 0; e < 12; e++) {
+            int sb = (int) (b >>> (5 * e) & EDGE_MASK);
+            int sa = (int) (a >>> (5 * (sb & 15)) & EDGE_MASK);
+            r |= (long) (sa ^ (sb & 16)) << (5 * e);
+        }
+        return r;
+    }
+
+    public static long invertCorners(long a) {
+        long r = 0;
+        for (int c = 0; c < 8; c++) {
+            int s = (int) (a >>> (6 * c) & CORNER_MASK);
+            r |= (long) (c | ORI_INV[s >>> 3] << 3) << (6 * (s & 7));
+        }
+        return r;
+    }
+
+    public static long invertEdges(long a) {
+        long r = 0;
+        for (int e = 0; e < 12; e++) {
+            int s = (int) (a >>> (5 * e) & EDGE_MASK);
+            r |= (long) (e | (s & 16)) << (5 * (s & 15));
+        }
+        return r;
+    }
+
+    /** this * b, the same as CubieCube.multiply. */
+    public PackedCube multiply(PackedCube b) {
+        return new PackedCube(multiplyCorners(corners, b.corners), multiplyEdges(edges, b.edges));
+    }
+
+    public PackedCube move(int m) {
+        return multiply(MOVES[m]);
+    }
+
+    public PackedCube inverse() {
+        return new PackedCube(invertCorners(corners), invertEdges(edges));
+    }
+
+    /** S_s * this * S_s^-1 for symmetry s of SymmetryTables.symCube. */
+    public PackedCube conjugate(int s) {
+        PackedCube[] sc = sym();
+        PackedCube si = sc[SymmetryTables.invIdx[s]];
+        return new PackedCube(multiplyCorners(multiplyCorners(sc[s].corners, corners), si.corners),
+                              multiplyEdges(multiplyEdges(sc[s].edges, edges), si.edges));
+    }
+
+    public static PackedCube moveCube(int m) {
+        return MOVES[m];
+    }
+
+    public static PackedCube symCube(int s) {
+        return sym()[s];
+    }
+
+    // Built on first use; racing threads build identical arrays, so no lock is needed
+    private static PackedCube[] sym() {
+        PackedCube[] sc = symCube;
+        if (sc == null) {
+            SymmetryTables.initBase();
+            sc = new PackedCube[N_SYM];
+            for (int s = 0; s < N_SYM; s++) sc[s] = of(SymmetryTables.symCube[s]);
+            symCube = sc;
+        }
+        return sc;
+    }
+
+    // ========== Coordinates (same values as the CubieCube getters) ==========
+
+    // 0 <= twist < 2187
+    public int getTwist() {
+        int ret = 0;
+        for (int i = 0; i < 7; i++) ret = 3 * ret + co(i);
+        return ret;
+    }
+
+    // 0 <= flip < 2048
+    public int getFlip() {
+        int ret = 0;
+        for (int i = 0; i < 11; i++) ret = 2 * ret + eo(i);
+        return ret;
+    }
+
+    // 0 <= slice < 495
+    public int getSlice() {
+        int a = 0, x = 0;
+        for (int j = 11; j >= 0; j--) {
+            if (ep(j) >= 8) a += BINOM[11 - j][++x];
+        }
+        return a;
+    }
+
+    // 0 <= slice_sorted < 11880
+    public int getSliceSorted() {
+        int a = 0, x = 0;
+        long edge4 = 0;
+        for (int j = 11; j >= 0; j--) {
+            int e = ep(j);
+            if (e >= 8) {
+                a += BINOM[11 - j][x + 1];
+                edge4 |= (long) (e - 8) << (4 * (3 - x));
+                x++;
+            }
+        }
+        return 24 * a + permIndex(edge4, 3);
+    }
+
+    // 0 <= corners < 40320
+    public int getCorners() {
+        long perm = 0;
+        for (int i = 0; i < 8; i++) perm |= (long) cp(i) << (4 * i);
+        return permIndex(perm, 7);
+    }
+
+    // 0 <= ud_edges < 40320, only meaningful once the UD-slice edges are home
+    public int getUdEdges() {
+        long perm = 0;
+        for (int i = 0; i < 8; i++) perm |= (long) ep(i) << (4 * i);
+        return permIndex(perm, 7);
+    }
+
+    // 0 <= tetra < 70
+    public int getTetra() {
+        int n = 7, k = 3, s = 0;
+        while (k >= 0) {
+            if (cp(n) >= 4) k--;
+            else s += BINOM[n][k];
+            n--;
+        }
+        return s;
+    }
+
+    /*
+     * Index of the permutation of 0..last held in 4-bit nibbles, computed like CubieCube.getCorners():
+     * rotate positions 0..j left until j is in place, counting the rotations. j sits at index i,
+     * so that takes (i + 1) % (j + 1) rotations, done here as one rotation of the packed nibbles.
+     */
+    private static int permIndex(long perm, int last) {
+        int b = 0;
+        for (int j = last; j > 0; j--) {
+            int i = 0;
+            while ((perm >>> (4 * i) & 15) != j) i++;
+            int k = (i + 1) % (j + 1);
+            if (k != 0) {
+                int n = 4 * (j + 1);
+                long mask = (1L << n) - 1;
+                long low = perm & mask;
+                perm = (perm & ~mask) | ((low >>> (4 * k) | low << (n - 4 * k)) & mask);
+            }
+            b = (j + 1) * b + k;
+        }
+        return b;
+    }
+
+    // ========== Equality ==========
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PackedCube)) return false;
+        PackedCube p = (PackedCube) o;
+        return corners == p.corners && edges == p.edges;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(corners * 31 + edges);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PackedCube[%012x, %015x]", corners, edges);
+    }
+}
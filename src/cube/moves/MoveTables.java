@@ -2,7 +2,8 @@ package cube.moves;
 
 import cube.model.cubie.CubieCube;
 import cube.model.cubie.Defs;
-import java.io.*;
+import cube.tables.TableFile;
+import cube.progress.Progress;
 import java.util.concurrent.*;
 
 import static cube.model.cubie.Defs.*;
@@ -20,11 +21,14 @@ public class MoveTables {
     public static short[] udEdgesMove = new short[N_UD_EDGES * N_MOVE];
     public static short[] tetraMove = new short[N_TETRA * N_MOVE];
 
-    private static boolean initialized = false;
+    // Each solver loads only the tables it uses (see initTwoPhase / initOptimal)
+    private static boolean commonLoaded = false;
+    private static boolean twoPhaseLoaded = false;
+    private static boolean optimalLoaded = false;
     private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
 
     private static void buildMoveTwist() {
-        System.out.println("creating move_twist table.");
+        Progress.message("creating move_twist table.");
         CubieCube a = new CubieCube();
         CubieCube[] basic = CubieCube.basicMoveCube;
         for (int i = 0; i < N_TWIST; i++) {
@@ -37,11 +41,11 @@ public class MoveTables {
                 a.cornerMultiply(basic[j]);
             }
         }
-        saveShortArray("move_twist", twistMove);
+        TableFile.save("move_twist", twistMove);
     }
 
     private static void buildMoveFlip() {
-        System.out.println("creating move_flip table.");
+        Progress.message("creating move_flip table.");
         CubieCube a = new CubieCube();
         CubieCube[] basic = CubieCube.basicMoveCube;
         for (int i = 0; i < N_FLIP; i++) {
@@ -54,11 +58,11 @@ public class MoveTables {
                 a.edgeMultiply(basic[j]);
             }
         }
-        saveShortArray("move_flip", flipMove);
+        TableFile.save("move_flip", flipMove);
     }
 
     private static void buildMoveSliceSorted() {
-        System.out.println("creating move_slice_sorted table (" + NUM_THREADS + " threads)...");
+        Progress.message("creating move_slice_sorted table (" + NUM_THREADS + " threads)...");
         ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
         int chunkSize = N_SLICE_SORTED / NUM_THREADS;
         
@@ -82,12 +86,12 @@ public class MoveTables {
         }
         exec.shutdown();
         try { exec.awaitTermination(10, TimeUnit.MINUTES); } catch (InterruptedException e) {}
-        System.out.println("done.");
-        saveShortArray("move_slice_sorted", sliceSortedMove);
+        Progress.message("done.");
+        TableFile.save("move_slice_sorted", sliceSortedMove);
     }
 
     private static void buildMoveCorners() {
-        System.out.println("creating move_corners table (" + NUM_THREADS + " threads)...");
+        Progress.message("creating move_corners table (" + NUM_THREADS + " threads)...");
         ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
         int chunkSize = N_CORNERS / NUM_THREADS;
         
@@ -111,12 +115,12 @@ public class MoveTables {
         }
         exec.shutdown();
         try { exec.awaitTermination(10, TimeUnit.MINUTES); } catch (InterruptedException e) {}
-        System.out.println("done.");
-        saveShortArray("move_corners", cornersMove);
+        Progress.message("done.");
+        TableFile.save("move_corners", cornersMove);
     }
 
     private static void buildMoveUEdges() {
-        System.out.println("creating move_u_edges table (" + NUM_THREADS + " threads)...");
+        Progress.message("creating move_u_edges table (" + NUM_THREADS + " threads)...");
         ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
         int chunkSize = N_SLICE_SORTED / NUM_THREADS;
         
@@ -140,12 +144,12 @@ public class MoveTables {
         }
         exec.shutdown();
         try { exec.awaitTermination(10, TimeUnit.MINUTES); } catch (InterruptedException e) {}
-        System.out.println("done.");
-        saveShortArray("move_u_edges", uEdgesMove);
+        Progress.message("done.");
+        TableFile.save("move_u_edges", uEdgesMove);
     }
 
     private static void buildMoveDEdges() {
-        System.out.println("creating move_d_edges table (" + NUM_THREADS + " threads)...");
+        Progress.message("creating move_d_edges table (" + NUM_THREADS + " threads)...");
         ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
         int chunkSize = N_SLICE_SORTED / NUM_THREADS;
         
@@ -169,12 +173,12 @@ public class MoveTables {
         }
         exec.shutdown();
         try { exec.awaitTermination(10, TimeUnit.MINUTES); } catch (InterruptedException e) {}
-        System.out.println("done.");
-        saveShortArray("move_d_edges", dEdgesMove);
+        Progress.message("done.");
+        TableFile.save("move_d_edges", dEdgesMove);
     }
 
     private static void buildMoveUDEdges() {
-        System.out.println("creating move_ud_edges table (" + NUM_THREADS + " threads)...");
+        Progress.message("creating move_ud_edges table (" + NUM_THREADS + " threads)...");
         ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
         int chunkSize = N_UD_EDGES / NUM_THREADS;
         
@@ -199,12 +203,12 @@ public class MoveTables {
         }
         exec.shutdown();
         try { exec.awaitTermination(10, TimeUnit.MINUTES); } catch (InterruptedException e) {}
-        System.out.println("done.");
-        saveShortArray("move_ud_edges", udEdgesMove);
+        Progress.message("done.");
+        TableFile.save("move_ud_edges", udEdgesMove);
     }
 
     private static void buildMoveTetra() {
-        System.out.println("creating move_tetra table...");
+        Progress.message("creating move_tetra table...");
         CubieCube a = new CubieCube();
         CubieCube[] basic = CubieCube.basicMoveCube;
         for (int i = 0; i < N_TETRA; i++) {
@@ -217,69 +221,40 @@ public class MoveTables {
                 a.cornerMultiply(basic[j]);
             }
         }
-        saveShortArray("move_tetra", tetraMove);
+        TableFile.save("move_tetra", tetraMove);
     }
 
-    public static void init() {
-        if (initialized) return;
-        
-        File f;
-        f = new File("move_twist");
-        if (f.exists()) { System.out.println("loading move_twist table."); loadShortArray("move_twist", twistMove); }
-        else buildMoveTwist();
-
-        f = new File("move_flip");
-        if (f.exists()) { System.out.println("loading move_flip table."); loadShortArray("move_flip", flipMove); }
-        else buildMoveFlip();
-
-        f = new File("move_slice_sorted");
-        if (f.exists()) { System.out.println("loading move_slice_sorted table."); loadShortArray("move_slice_sorted", sliceSortedMove); }
-        else buildMoveSliceSorted();
-
-        f = new File("move_corners");
-        if (f.exists()) { System.out.println("loading move_corners table."); loadShortArray("move_corners", cornersMove); }
-        else buildMoveCorners();
-
-        f = new File("move_u_edges");
-        if (f.exists()) { System.out.println("loading move_u_edges table."); loadShortArray("move_u_edges", uEdgesMove); }
-        else buildMoveUEdges();
-
-        f = new File("move_d_edges");
-        if (f.exists()) { System.out.println("loading move_d_edges table."); loadShortArray("move_d_edges", dEdgesMove); }
-        else buildMoveDEdges();
-
-        f = new File("move_ud_edges");
-        if (f.exists()) { System.out.println("loading move_ud_edges table."); loadShortArray("move_ud_edges", udEdgesMove); }
-        else buildMoveUDEdges();
-
-        f = new File("move_tetra");
-        if (f.exists()) { System.out.println("loading move_tetra table."); loadShortArray("move_tetra", tetraMove); }
-        else buildMoveTetra();
+    // Tables used by both solvers
+    private static void initCommon() {
+        if (commonLoaded) return;
+        if (!TableFile.load("move_twist", twistMove)) buildMoveTwist();
+        if (!TableFile.load("move_flip", flipMove)) buildMoveFlip();
+        if (!TableFile.load("move_slice_sorted", sliceSortedMove)) buildMoveSliceSorted();
+        if (!TableFile.load("move_corners", cornersMove)) buildMoveCorners();
+        commonLoaded = true;
+    }
 
-        initialized = true;
+    // Move tables of the two-phase solver; returns at once when they are already loaded
+    public static synchronized void initTwoPhase() {
+        if (twoPhaseLoaded) return;
+        initCommon();
+        if (!TableFile.load("move_u_edges", uEdgesMove)) buildMoveUEdges();
+        if (!TableFile.load("move_d_edges", dEdgesMove)) buildMoveDEdges();
+        if (!TableFile.load("move_ud_edges", udEdgesMove)) buildMoveUDEdges();
+        twoPhaseLoaded = true;
     }
 
-    private static void saveShortArray(String fname, short[] arr) {
-        try (FileOutputStream fos = new FileOutputStream(fname);
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 65536)) {
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.allocate(arr.length * 2);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asShortBuffer().put(arr);
-            bos.write(bb.array());
-        } catch (IOException e) {
-            System.err.println("Error saving " + fname + ": " + e.getMessage());
-        }
+    // Move tables of the optimal solver; returns at once when they are already loaded
+    public static synchronized void initOptimal() {
+        if (optimalLoaded) return;
+        initCommon();
+        if (!TableFile.load("move_tetra", tetraMove)) buildMoveTetra();
+        optimalLoaded = true;
     }
 
-    private static void loadShortArray(String fname, short[] arr) {
-        try (FileInputStream fis = new FileInputStream(fname);
-             BufferedInputStream bis = new BufferedInputStream(fis, 65536)) {
-            byte[] bytes = bis.readAllBytes();
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap(bytes);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asShortBuffer().get(arr);
-        } catch (IOException e) {
-            System.err.println("Error loading " + fname + ": " + e.getMessage());
-        }
+    // All move tables
+    public static void init() {
+        initTwoPhase();
+        initOptimal();
     }
 }
@@ -0,0 +1,38 @@
+package cube.progress;
+
+import java.io.PrintStream;
+
+/**
+ * Writes messages as lines and ticks as rows of dots to a console stream,
+ * which is how the command line tools have always shown table generation.
+ */
+public class ConsoleProgress implements ProgressListener {
+
+    private static final int DOTS_PER_LINE = 80;
+
+    private final PrintStream out;
+    private int dots = 0;
+
+    public ConsoleProgress(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public synchronized void message(String text) {
+        if (dots > 0) {
+            out.println();
+            dots = 0;
+        }
+        out.println(text);
+    }
+
+    @Override
+    public synchronized void tick() {
+        out.print('.');
+        if (++dots == DOTS_PER_LINE) {
+            out.println();
+            dots = 0;
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,41 @@
+package cube.progress;
+
+/**
+ * Global sink for progress and diagnostic output of the table and solver code.
+ * Silent by default: until an application installs a listener, message() and tick() only read
+ * one volatile field, so library users (e.g. a batch service writing results to stdout) get
+ * no output and no console I/O in hot loops. Callers that build an expensive message should
+ * check isEnabled() first.
+ */
+public final class Progress {
+
+    private static volatile ProgressListener listener = null;
+
+    private Progress() {
+    }
+
+    /**
+     * Install the listener that receives all output, or null to turn output off again.
+     */
+    public static void setListener(ProgressListener l) {
+        listener = l;
+    }
+
+    public static ProgressListener getListener() {
+        return listener;
+    }
+
+    public static boolean isEnabled() {
+        return listener != null;
+    }
+
+    public static void message(String text) {
+        ProgressListener l = listener;
+        if (l != null) l.message(text);
+    }
+
+    public static void tick() {
+        ProgressListener l = listener;
+        if (l != null) l.tick();
+    }
+}
@@ -0,0 +1,20 @@
+package cube.progress;
+
+/**
+ * Receives the progress and diagnostic output of table generation and solving.
+ * Calls may come from several worker threads at once; implementations must be thread-safe
+ * and should return quickly, since some calls are made from inside generation loops.
+ */
+public interface ProgressListener {
+
+    /**
+     * A complete status line, e.g. "creating phase1_prun table..." or "depth 17 done in ...".
+     */
+    void message(String text);
+
+    /**
+     * One unit of progress of the step announced by the last message (printed as a dot on the console).
+     */
+    default void tick() {
+    }
+}
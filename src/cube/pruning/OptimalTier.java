@@ -0,0 +1,94 @@
+package cube.pruning;
+
+import static cube.model.cubie.Defs.*;
+
+/**
+ * Which heuristics the optimal solver loads, trading memory for search speed.
+ * Every tier keeps the exact corner table; the search skips the lookups of the tables a tier leaves out.
+ *
+ * Chosen with -Dcube.optimal.tier=phasex24|ubig|full, or from a total memory budget with
+ * -Dcube.memory.budget=SIZE (e.g. 2g, 1500m), which picks the fastest tier that fits.
+ * Without either setting the full set is loaded.
+ */
+public enum OptimalTier {
+
+    // corner + phasex24 (3 axes): about 1.05GB of heap, nothing mapped
+    PHASEX24(true, false),
+    // corner + ubigPF (3 axes): about 2GB memory-mapped, small heap
+    UBIG(false, true),
+    // corner + phasex24 + ubigPF: the fastest, about 1.05GB heap plus 2GB mapped
+    FULL(true, true);
+
+    // phasex24 pruning table plus the flipslicesorted symmetry and sym-coordinate move tables it is indexed through
+    static final long PHASEX24_BYTES = (long) N_FLIPSLICESORTED_CLASS * N_TWIST / 4
+            + 4L * N_FLIP * N_SLICE_SORTED + 4L * N_FLIPSLICESORTED_CLASS * (N_MOVE + 1);
+    static final long UBIG_BYTES = (long) N_TETRA * ((long) (N_FLIPSLICE_CLASS / 5) * N_TWIST);
+    // Move, symmetry, corner and two-phase tables every process loads anyway, plus JVM overhead
+    static final long BASE_BYTES = 128L << 20;
+
+    private final boolean phasex24;
+    private final boolean ubig;
+
+    OptimalTier(boolean phasex24, boolean ubig) {
+        this.phasex24 = phasex24;
+        this.ubig = ubig;
+    }
+
+    public boolean hasPhasex24() {
+        return phasex24;
+    }
+
+    public boolean hasUbig() {
+        return ubig;
+    }
+
+    /** Rough total memory (heap plus mapped) a process solving at this tier needs. */
+    public long estimatedBytes() {
+        return BASE_BYTES + (phasex24 ? PHASEX24_BYTES : 0) + (ubig ? UBIG_BYTES : 0);
+    }
+
+    /**
+     * The fastest tier whose estimated memory fits the budget, or PHASEX24 (the smallest) if none does.
+     */
+    public static OptimalTier forBudget(long budgetBytes) {
+        for (OptimalTier t : new OptimalTier[] {FULL, UBIG}) {
+            if (t.estimatedBytes() <= budgetBytes) return t;
+        }
+        return PHASEX24;
+    }
+
+    /**
+     * The tier configured through system properties: cube.optimal.tier if set, else cube.memory.budget, else FULL.
+     * @throws IllegalArgumentException for a value that cannot be parsed
+     */
+    public static OptimalTier fromSystemProperties() {
+        String tier = System.getProperty("cube.optimal.tier");
+        if (tier != null) {
+            try {
+                return valueOf(tier.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("cube.optimal.tier must be phasex24, ubig or full, not " + tier);
+            }
+        }
+        String budget = System.getProperty("cube.memory.budget");
+        if (budget != null) return forBudget(parseSize(budget));
+        return FULL;
+    }
+
+    /**
+     * Parse a size such as 2g, 1536m, 800k or a plain number of bytes.
+     */
+    public static long parseSize(String s) {
+        String v = s.trim().toLowerCase();
+        long mult = 1;
+        if (v.endsWith("g")) mult = 1L << 30;
+        else if (v.endsWith("m")) mult = 1L << 20;
+        else if (v.endsWith("k")) mult = 1L << 10;
+        if (mult != 1) v = v.substring(0, v.length() - 1);
+        try {
+            return (long) (Double.parseDouble(v) * mult);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid memory size: " + s);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package cube.pruning;
 
 import cube.model.cubie.CubieCube;
+import cube.model.cubie.PackedCube;
 import cube.model.face.Edge;
 import cube.model.face.Move;
 import cube.symmetry.SymmetryTables;
 import cube.moves.MoveTables;
+import cube.tables.TableFile;
+import cube.progress.Progress;
 import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static cube.model.cubie.Defs.*;
 
@@ -22,7 +30,7 @@ public class PruningTables {
     // Optimal solver pruning tables
     public static int[] flipslicesortedTwistDepth3; // packed 2-bit entries
     public static byte[] cornerDepth;
-    public static byte[] ubigPF;                    // Ultra-big pruning table (packed 5 trits/byte)
+    public static MappedByteBuffer[] ubigPF;        // Ultra-big pruning table (packed 5 trits/byte), one mapped segment per tetra
 
     // Distance lookup table
     public static byte[] dist = new byte[60];
@@ -33,7 +41,17 @@ public class PruningTables {
     // Lookup table for unpacking 5 trits from a byte
     private static byte[][] GETPACKED = new byte[243][5];
 
-    private static boolean initialized = false;
+    // Each solver loads only the tables it uses (see initTwoPhase / initOptimal)
+    private static boolean baseLoaded = false;
+    private static boolean twoPhaseLoaded = false;
+    private static boolean optimalLoaded = false;
+
+    // Optimal solver heuristics to load; null until set or first read from the system properties
+    private static OptimalTier optimalTier = null;
+    // Which optimal heuristics are actually loaded, read by the search
+    private static volatile boolean phasex24Loaded = false;
+    private static volatile boolean ubigLoaded = false;
+    private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
 
     // Constants for ubigPF
     private static final long ENTRIES_PER_TETRA = (long) N_FLIPSLICE_CLASS * N_TWIST;
@@ -41,6 +59,9 @@ public class PruningTables {
     private static final long BYTES_PER_TETRA = ENTRIES_PER_TETRA / TRITS_PER_BYTE;
     private static final long WORDS_PER_TETRA_2BIT = (ENTRIES_PER_TETRA + 15) / 16;
     private static final long G_SPLIT = (long) (N_FLIPSLICE_CLASS / 5) * N_TWIST;
+    private static final int G4_SPLIT = (int) (4 * G_SPLIT);
+    private static final int UBIG_CHUNKS_PER_TETRA = 4;   // work units per tetra layer and depth for parallel generation
+    private static final int PHASE1X24_CHUNKS = 76;       // work units per depth for parallel phase1x24 generation
 
     // ========================= Packed 2-bit accessors =========================
     
@@ -82,18 +103,16 @@ public class PruningTables {
 
     // ========================= UbigPF accessors =========================
     
+    // The table lives off-heap: each tetra layer is a read-only mapping of its slice of the file,
+    // so the OS page cache is shared between solver processes and nothing is copied at startup
     public static int getUbigMod3(int tetra, int idx) {
         if (ubigPF == null) return 0;
-        long offset = (long) tetra * BYTES_PER_TETRA;
-        long g4 = 4 * G_SPLIT;
-        if (idx < g4) {
-            int base = idx >> 2;
-            int off = idx & 3;
-            int b = ubigPF[(int)(offset + base)] & 0xFF;
-            return GETPACKED[b][off];
+        MappedByteBuffer layer = ubigPF[tetra];
+        if (idx < G4_SPLIT) {
+            int b = layer.get(idx >> 2) & 0xFF;
+            return GETPACKED[b][idx & 3];
         } else {
-            int base = (int)(idx - g4);
-            int b = ubigPF[(int)(offset + base)] & 0xFF;
+            int b = layer.get(idx - G4_SPLIT) & 0xFF;
             return GETPACKED[b][4];
         }
     }
@@ -130,15 +149,10 @@ public class PruningTables {
     
     private static void createCornerPrunTable() {
         String fname = "cornerprun";
-        File f = new File(fname);
 
-        if (f.exists()) {
-            System.out.println("loading " + fname + " table...");
-            cornerDepth = new byte[N_CORNERS];
-            loadByteArray(fname, cornerDepth);
-        } else {
-            System.out.println("creating " + fname + " table...");
-            cornerDepth = new byte[N_CORNERS];
+        cornerDepth = new byte[N_CORNERS];
+        if (!TableFile.load(fname, cornerDepth)) {
+            Progress.message("creating " + fname + " table...");
             Arrays.fill(cornerDepth, (byte) -1);
             cornerDepth[0] = 0;
             int done = 1;
@@ -152,15 +166,14 @@ public class PruningTables {
                             if (cornerDepth[corners1] == -1) {
                                 cornerDepth[corners1] = (byte) (depth + 1);
                                 done++;
-                                if (done % 2000 == 0) System.out.print(".");
+                                if (done % 2000 == 0) Progress.tick();
                             }
                         }
                     }
                 }
                 depth++;
             }
-            System.out.println();
-            saveByteArray(fname, cornerDepth);
+            TableFile.save(fname, cornerDepth);
         }
     }
 
@@ -168,37 +181,29 @@ public class PruningTables {
     
     private static void createPhase1PrunTable() {
         String fname = "phase1_prun";
-        File f = new File(fname);
         int total = N_FLIPSLICE_CLASS * N_TWIST;
 
-        if (f.exists()) {
-            System.out.println("loading phase1_prun table...");
-            flipsliceTwistDepth3 = new int[total / 16 + 1];
-            loadIntArray(fname, flipsliceTwistDepth3);
-        } else {
-            System.out.println("creating phase1_prun table...");
-            System.out.println("This may take some time depending on the hardware.");
-            flipsliceTwistDepth3 = new int[total / 16 + 1];
+        flipsliceTwistDepth3 = new int[total / 16 + 1];
+        if (!TableFile.load(fname, flipsliceTwistDepth3)) {
+            Progress.message("creating phase1_prun table...");
+            Progress.message("This may take some time depending on the hardware.");
             Arrays.fill(flipsliceTwistDepth3, 0xffffffff);
 
             // Create table with the symmetries of the flipslice classes
             CubieCube c = new CubieCube();
             int[] fsSym = new int[N_FLIPSLICE_CLASS];
             for (int i = 0; i < N_FLIPSLICE_CLASS; i++) {
-                if ((i + 1) % 1000 == 0) System.out.print(".");
+                if ((i + 1) % 1000 == 0) Progress.tick();
                 int rep = SymmetryTables.flipsliceRep[i];
                 c.setSlice(rep / N_FLIP);
                 c.setFlip(rep % N_FLIP);
+                PackedCube pc = PackedCube.of(c);
                 for (int s = 0; s < N_SYM_D4h; s++) {
-                    CubieCube ss = new CubieCube(SymmetryTables.symCube[s].getCpArray(), SymmetryTables.symCube[s].getCoArray(),
-                                                  SymmetryTables.symCube[s].getEpArray(), SymmetryTables.symCube[s].getEoArray());
-                    ss.edgeMultiply(c);
-                    ss.edgeMultiply(SymmetryTables.symCube[SymmetryTables.invIdx[s]]);
+                    PackedCube ss = pc.conjugate(s);
                     if (ss.getSlice() == rep / N_FLIP && ss.getFlip() == rep % N_FLIP)
                         fsSym[i] |= (1 << s);
                 }
             }
-            System.out.println();
 
             int fsClassidx = 0;
             int twist = 0;
@@ -206,19 +211,18 @@ public class PruningTables {
             int done = 1;
             int depth = 0;
             boolean backsearch = false;
-            System.out.println("depth: " + depth + " done: " + done + "/" + total);
+            Progress.message("depth: " + depth + " done: " + done + "/" + total);
 
             while (done != total) {
                 int depth3 = depth % 3;
                 if (depth == 9) {
-                    System.out.println("flipping to backwards search...");
+                    Progress.message("flipping to backwards search...");
                     backsearch = true;
                 }
                 int mult = (depth < 8 ? 5 : 1);
                 int idx = 0;
                 for (fsClassidx = 0; fsClassidx < N_FLIPSLICE_CLASS; fsClassidx++) {
-                    if ((fsClassidx + 1) % (200 * mult) == 0) System.out.print(".");
-                    if ((fsClassidx + 1) % (16000 * mult) == 0) System.out.println();
+                    if ((fsClassidx + 1) % (200 * mult) == 0) Progress.tick();
                     twist = 0;
                     while (twist < N_TWIST) {
                         if (!backsearch && (idx & 15) == 0 && flipsliceTwistDepth3[idx >> 4] == 0xffffffff && twist < N_TWIST - 16) {
@@ -236,8 +240,9 @@ public class PruningTables {
                                 int flip1 = MoveTables.flipMove[N_MOVE * flip + m] & 0xFFFF;
                                 int slice1 = (MoveTables.sliceSortedMove[(N_MOVE * N_PERM_4) * slice + m] & 0xFFFF) / N_PERM_4;
                                 int flipslice1 = slice1 * N_FLIP + flip1;
-                                int fs1Classidx = SymmetryTables.flipsliceClassidx[flipslice1] & 0xFFFF;
-                                int fs1Sym = SymmetryTables.flipsliceSym[flipslice1] & 0xFF;
+                                int fs1ClassSym = SymmetryTables.flipsliceClassSym[flipslice1];
+                                int fs1Classidx = SymmetryTables.classidx(fs1ClassSym);
+                                int fs1Sym = SymmetryTables.sym(fs1ClassSym);
                                 twist1 = SymmetryTables.twistConj[(twist1 << 4) + fs1Sym] & 0xFFFF;
                                 int idx1 = N_TWIST * fs1Classidx + twist1;
                                 if (!backsearch) {
@@ -273,10 +278,9 @@ public class PruningTables {
                     }
                 }
                 depth++;
-                System.out.println();
-                System.out.println("depth: " + depth + " done: " + done + "/" + total);
+                Progress.message("depth: " + depth + " done: " + done + "/" + total);
             }
-            saveIntArray(fname, flipsliceTwistDepth3);
+            TableFile.save(fname, flipsliceTwistDepth3);
         }
     }
 
@@ -284,157 +288,165 @@ public class PruningTables {
     
     private static void createPhase1x24PrunTable() {
         String fname = "phase1x24_prun";
-        File f = new File(fname);
         long total = (long) N_FLIPSLICESORTED_CLASS * N_TWIST;
 
-        if (f.exists()) {
-            System.out.println("loading " + fname + " table...");
-            flipslicesortedTwistDepth3 = new int[(int)(total / 16 + 1)];
-            loadIntArray(fname, flipslicesortedTwistDepth3);
-        } else {
-            System.out.println("creating " + fname + " table...");
-            System.out.println("This may take some time depending on the hardware.");
-            flipslicesortedTwistDepth3 = new int[(int)(total / 16 + 1)];
+        flipslicesortedTwistDepth3 = new int[(int)(total / 16 + 1)];
+        if (!TableFile.load(fname, flipslicesortedTwistDepth3)) {
+            Progress.message("creating " + fname + " table...");
+            Progress.message("This may take some time depending on the hardware.");
             Arrays.fill(flipslicesortedTwistDepth3, 0xffffffff);
 
             // Create table with the symmetries of the flipslicesorted classes
             CubieCube cc = new CubieCube();
             int[] fsSym = new int[N_FLIPSLICESORTED_CLASS];
             for (int i = 0; i < N_FLIPSLICESORTED_CLASS; i++) {
-                if ((i + 1) % 48000 == 0) System.out.print(".");
+                if ((i + 1) % 48000 == 0) Progress.tick();
                 int rep = SymmetryTables.flipslicesortedRep[i];
                 cc.setSliceSorted(rep / N_FLIP);
                 cc.setFlip(rep % N_FLIP);
+                PackedCube pc = PackedCube.of(cc);
                 for (int s = 0; s < N_SYM_D4h; s++) {
-                    CubieCube ss = new CubieCube(SymmetryTables.symCube[s].getCpArray(), SymmetryTables.symCube[s].getCoArray(),
-                                                  SymmetryTables.symCube[s].getEpArray(), SymmetryTables.symCube[s].getEoArray());
-                    ss.edgeMultiply(cc);
-                    ss.edgeMultiply(SymmetryTables.symCube[SymmetryTables.invIdx[s]]);
+                    PackedCube ss = pc.conjugate(s);
                     if (ss.getSliceSorted() == rep / N_FLIP && ss.getFlip() == rep % N_FLIP)
                         fsSym[i] |= (1 << s);
                 }
             }
-            System.out.println();
 
             setFlipslicesortedTwistDepth3(0, 0);
             long done = 1;
             int depth = 0;
             boolean backsearch = false;
-            System.out.println("depth: " + depth + " done: " + done + "/" + total);
+            Progress.message("depth: " + depth + " done: " + done + "/" + total);
 
+            ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
             while (done != total) {
-                int depth3 = depth % 3;
                 if (depth == 10) {
-                    System.out.println("flipping to backwards search...");
+                    Progress.message("flipping to backwards search...");
                     backsearch = true;
                 }
-                long idx = 0;
-                for (int fsClassidx = 0; fsClassidx < N_FLIPSLICESORTED_CLASS; fsClassidx++) {
-                    if ((fsClassidx + 1) % 20000 == 0) System.out.print(".");
-                    if ((fsClassidx + 1) % 1600000 == 0) System.out.println();
-
-                    int twist = 0;
-                    while (twist < N_TWIST) {
-                        if (!backsearch && idx % 16 == 0 && flipslicesortedTwistDepth3[(int)(idx / 16)] == 0xffffffff && twist < N_TWIST - 16) {
-                            twist += 16;
-                            idx += 16;
-                            continue;
-                        }
-                        boolean match = backsearch ? (getFlipslicesortedTwistDepth3(idx) == 3) : (getFlipslicesortedTwistDepth3(idx) == depth3);
-                        if (match) {
-                            int flipslicesorted = SymmetryTables.flipslicesortedRep[fsClassidx];
-                            int flip = flipslicesorted % N_FLIP;
-                            int slicesorted = flipslicesorted / N_FLIP;
-                            for (int m = 0; m < N_MOVE; m++) {
-                                int twist1 = MoveTables.twistMove[N_MOVE * twist + m] & 0xFFFF;
-                                int flip1 = MoveTables.flipMove[N_MOVE * flip + m] & 0xFFFF;
-                                int slicesorted1 = MoveTables.sliceSortedMove[N_MOVE * slicesorted + m] & 0xFFFF;
-
-                                int flipslicesorted1 = (slicesorted1 << 11) + flip1;
-                                int fs1Classidx = SymmetryTables.flipslicesortedClassidx[flipslicesorted1];
-                                int fs1Sym = SymmetryTables.flipslicesortedSym[flipslicesorted1] & 0xFF;
-                                twist1 = SymmetryTables.twistConj[(twist1 << 4) + fs1Sym] & 0xFFFF;
-                                long idx1 = (long) N_TWIST * fs1Classidx + twist1;
+                // Split the sweep over the classes; entries are only ever set through cas2()
+                List<Callable<Long>> tasks = new ArrayList<>();
+                final int d = depth;
+                final boolean back = backsearch;
+                for (int chunk = 0; chunk < PHASE1X24_CHUNKS; chunk++) {
+                    final int from = (int) ((long) N_FLIPSLICESORTED_CLASS * chunk / PHASE1X24_CHUNKS);
+                    final int to = (int) ((long) N_FLIPSLICESORTED_CLASS * (chunk + 1) / PHASE1X24_CHUNKS);
+                    tasks.add(() -> {
+                        long n = sweepPhase1x24(fsSym, from, to, d, back);
+                        Progress.tick();
+                        return n;
+                    });
+                }
+                try {
+                    for (Future<Long> fut : exec.invokeAll(tasks)) done += fut.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    exec.shutdownNow();
+                    throw new IllegalStateException("phase1x24 generation failed", e);
+                }
+                depth++;
+                Progress.message("depth: " + depth + " done: " + done + "/" + total);
+            }
+            exec.shutdown();
+            TableFile.save(fname, flipslicesortedTwistDepth3);
+        }
+    }
 
-                                if (!backsearch) {
-                                    if (getFlipslicesortedTwistDepth3(idx1) == 3) {
-                                        setFlipslicesortedTwistDepth3(idx1, (depth + 1) % 3);
-                                        done++;
-                                        int sym = fsSym[fs1Classidx];
-                                        if (sym != 1) {
-                                            for (int k = 1; k < 16; k++) {
-                                                sym >>= 1;
-                                                if ((sym & 1) != 0) {
-                                                    int twist2 = SymmetryTables.twistConj[(twist1 << 4) + k] & 0xFFFF;
-                                                    long idx2 = (long) N_TWIST * fs1Classidx + twist2;
-                                                    if (getFlipslicesortedTwistDepth3(idx2) == 3) {
-                                                        setFlipslicesortedTwistDepth3(idx2, (depth + 1) % 3);
-                                                        done++;
-                                                    }
-                                                }
+    // Expand one BFS depth of the phase1x24 table for the flipslicesorted classes [fsFrom, fsTo).
+    // Safe to run concurrently for disjoint class ranges: entries only go from 3 to the next depth value.
+    private static long sweepPhase1x24(int[] fsSym, int fsFrom, int fsTo, int depth, boolean backsearch) {
+        int[] table = flipslicesortedTwistDepth3;
+        int depth3 = depth % 3;
+        int val = (depth + 1) % 3;
+        long done = 0;
+        long idx = (long) N_TWIST * fsFrom;
+        for (int fsClassidx = fsFrom; fsClassidx < fsTo; fsClassidx++) {
+            int twist = 0;
+            while (twist < N_TWIST) {
+                if (!backsearch && idx % 16 == 0 && table[(int)(idx / 16)] == 0xffffffff && twist < N_TWIST - 16) {
+                    twist += 16;
+                    idx += 16;
+                    continue;
+                }
+                boolean match = backsearch ? (get2(table, idx) == 3) : (get2(table, idx) == depth3);
+                if (match) {
+                    int flipslicesorted = SymmetryTables.flipslicesortedRep[fsClassidx];
+                    int flip = flipslicesorted % N_FLIP;
+                    int slicesorted = flipslicesorted / N_FLIP;
+                    for (int m = 0; m < N_MOVE; m++) {
+                        int twist1 = MoveTables.twistMove[N_MOVE * twist + m] & 0xFFFF;
+                        int flip1 = MoveTables.flipMove[N_MOVE * flip + m] & 0xFFFF;
+                        int slicesorted1 = MoveTables.sliceSortedMove[N_MOVE * slicesorted + m] & 0xFFFF;
+
+                        int flipslicesorted1 = (slicesorted1 << 11) + flip1;
+                        int fs1ClassSym = SymmetryTables.flipslicesortedClassSym[flipslicesorted1];
+                        int fs1Classidx = SymmetryTables.classidx(fs1ClassSym);
+                        int fs1Sym = SymmetryTables.sym(fs1ClassSym);
+                        twist1 = SymmetryTables.twistConj[(twist1 << 4) + fs1Sym] & 0xFFFF;
+                        long idx1 = (long) N_TWIST * fs1Classidx + twist1;
+
+                        if (!backsearch) {
+                            if (get2(table, idx1) == 3 && cas2(table, idx1, val)) {
+                                done++;
+                                int sym = fsSym[fs1Classidx];
+                                if (sym != 1) {
+                                    for (int k = 1; k < 16; k++) {
+                                        sym >>= 1;
+                                        if ((sym & 1) != 0) {
+                                            int twist2 = SymmetryTables.twistConj[(twist1 << 4) + k] & 0xFFFF;
+                                            long idx2 = (long) N_TWIST * fs1Classidx + twist2;
+                                            if (get2(table, idx2) == 3 && cas2(table, idx2, val)) {
+                                                done++;
                                             }
                                         }
                                     }
-                                } else {
-                                    if (getFlipslicesortedTwistDepth3(idx1) == depth3) {
-                                        setFlipslicesortedTwistDepth3(idx, (depth + 1) % 3);
-                                        done++;
-                                        break;
-                                    }
                                 }
                             }
+                        } else {
+                            if (get2(table, idx1) == depth3) {
+                                if (cas2(table, idx, val)) done++;
+                                break;
+                            }
                         }
-                        twist++;
-                        idx++;
                     }
                 }
-                depth++;
-                System.out.println();
-                System.out.println("depth: " + depth + " done: " + done + "/" + total);
+                twist++;
+                idx++;
             }
-            saveIntArray(fname, flipslicesortedTwistDepth3);
         }
+        return done;
     }
 
     // ========================= Phase 2 pruning table =========================
     
     private static void createPhase2PrunTable() {
         String fname = "phase2_prun";
-        File f = new File(fname);
         int total = N_CORNERS_CLASS * N_UD_EDGES;
 
-        if (f.exists()) {
-            System.out.println("loading phase2_prun table...");
-            cornersUdEdgesDepth3 = new int[total / 16];
-            loadIntArray(fname, cornersUdEdgesDepth3);
-        } else {
-            System.out.println("creating phase2_prun table...");
-            cornersUdEdgesDepth3 = new int[total / 16];
+        cornersUdEdgesDepth3 = new int[total / 16];
+        if (!TableFile.load(fname, cornersUdEdgesDepth3)) {
+            Progress.message("creating phase2_prun table...");
             Arrays.fill(cornersUdEdgesDepth3, 0xffffffff);
 
             // Create table with the symmetries of the corner classes
             CubieCube c = new CubieCube();
             int[] cSym = new int[N_CORNERS_CLASS];
             for (int i = 0; i < N_CORNERS_CLASS; i++) {
-                if ((i + 1) % 1000 == 0) System.out.print(".");
+                if ((i + 1) % 1000 == 0) Progress.tick();
                 int rep = SymmetryTables.cornerRep[i] & 0xFFFF;
                 c.setCorners(rep);
+                PackedCube pc = PackedCube.of(c);
                 for (int s = 0; s < N_SYM_D4h; s++) {
-                    CubieCube ss = new CubieCube(SymmetryTables.symCube[s].getCpArray(), SymmetryTables.symCube[s].getCoArray(),
-                                                  SymmetryTables.symCube[s].getEpArray(), SymmetryTables.symCube[s].getEoArray());
-                    ss.cornerMultiply(c);
-                    ss.cornerMultiply(SymmetryTables.symCube[SymmetryTables.invIdx[s]]);
+                    PackedCube ss = pc.conjugate(s);
                     if (ss.getCorners() == rep) cSym[i] |= (1 << s);
                 }
             }
-            System.out.println();
 
             int cClassidx = 0;
             int udEdge = 0;
             setCornersUdEdgesDepth3(N_UD_EDGES * cClassidx + udEdge, 0);
             int done = 1;
             int depth = 0;
-            System.out.println("depth: " + depth + " done: " + done + "/" + total);
+            Progress.message("depth: " + depth + " done: " + done + "/" + total);
 
             int[] phase2Moves = {
                 Move.U1.ordinal(), Move.U2.ordinal(), Move.U3.ordinal(),
@@ -448,8 +460,7 @@ public class PruningTables {
                 int idx = 0;
                 int mult = (depth > 9 ? 1 : 2);
                 for (cClassidx = 0; cClassidx < N_CORNERS_CLASS; cClassidx++) {
-                    if ((cClassidx + 1) % (20 * mult) == 0) System.out.print(".");
-                    if ((cClassidx + 1) % (1600 * mult) == 0) System.out.println();
+                    if ((cClassidx + 1) % (20 * mult) == 0) Progress.tick();
                     udEdge = 0;
                     while (udEdge < N_UD_EDGES) {
                         if (((idx & 15) == 0) && cornersUdEdgesDepth3[idx >> 4] == 0xffffffff && udEdge < N_UD_EDGES - 16) {
@@ -462,8 +473,9 @@ public class PruningTables {
                             for (int m : phase2Moves) {
                                 int udEdge1 = MoveTables.udEdgesMove[N_MOVE * udEdge + m] & 0xFFFF;
                                 int corner1 = MoveTables.cornersMove[N_MOVE * corner + m] & 0xFFFF;
-                                int c1Classidx = SymmetryTables.cornerClassidx[corner1] & 0xFFFF;
-                                int c1Sym = SymmetryTables.cornerSym[corner1] & 0xFF;
+                                int c1ClassSym = SymmetryTables.cornerClassSym[corner1];
+                                int c1Classidx = SymmetryTables.classidx(c1ClassSym);
+                                int c1Sym = SymmetryTables.sym(c1ClassSym);
                                 udEdge1 = SymmetryTables.udEdgesConj[(udEdge1 << 4) + c1Sym] & 0xFFFF;
                                 int idx1 = N_UD_EDGES * c1Classidx + udEdge1;
                                 if (getCornersUdEdgesDepth3(idx1) == 3) {
@@ -491,11 +503,10 @@ public class PruningTables {
                     }
                 }
                 depth++;
-                System.out.println();
-                System.out.println("depth: " + depth + " done: " + done + "/" + total);
+                Progress.message("depth: " + depth + " done: " + done + "/" + total);
             }
-            System.out.println("remaining unfilled entries have depth >= 11");
-            saveIntArray(fname, cornersUdEdgesDepth3);
+            Progress.message("remaining unfilled entries have depth >= 11");
+            TableFile.save(fname, cornersUdEdgesDepth3);
         }
     }
 
@@ -503,15 +514,10 @@ public class PruningTables {
     
     private static void createPhase2CornslicePrunTable() {
         String fname = "phase2_cornsliceprun";
-        File f = new File(fname);
 
-        if (f.exists()) {
-            System.out.println("loading " + fname + " table...");
-            cornsliceDepth = new byte[N_CORNERS * N_PERM_4];
-            loadByteArray(fname, cornsliceDepth);
-        } else {
-            System.out.println("creating " + fname + " table...");
-            cornsliceDepth = new byte[N_CORNERS * N_PERM_4];
+        cornsliceDepth = new byte[N_CORNERS * N_PERM_4];
+        if (!TableFile.load(fname, cornsliceDepth)) {
+            Progress.message("creating " + fname + " table...");
             Arrays.fill(cornsliceDepth, (byte) -1);
             cornsliceDepth[0] = 0;
             int done = 1;
@@ -535,7 +541,7 @@ public class PruningTables {
                                 if (cornsliceDepth[idx1] == -1) {
                                     cornsliceDepth[idx1] = (byte) (depth + 1);
                                     done++;
-                                    if (done % 20000 == 0) System.out.print(".");
+                                    if (done % 20000 == 0) Progress.tick();
                                 }
                             }
                         }
@@ -543,8 +549,7 @@ public class PruningTables {
                 }
                 depth++;
             }
-            System.out.println();
-            saveByteArray(fname, cornsliceDepth);
+            TableFile.save(fname, cornsliceDepth);
         }
     }
 
@@ -552,15 +557,10 @@ public class PruningTables {
     
     private static void initPhase2EdgeMergeTable() {
         String fname = "phase2_edgemerge";
-        File f = new File(fname);
 
-        if (f.exists()) {
-            System.out.println("loading " + fname + " table...");
-            uEdgesPlusDEdgesToUdEdges = new short[N_U_EDGES_PHASE2 * N_PERM_4];
-            loadShortArray(fname, uEdgesPlusDEdgesToUdEdges);
-        } else {
-            System.out.println("creating " + fname + " table...");
-            uEdgesPlusDEdgesToUdEdges = new short[N_U_EDGES_PHASE2 * N_PERM_4];
+        uEdgesPlusDEdgesToUdEdges = new short[N_U_EDGES_PHASE2 * N_PERM_4];
+        if (!TableFile.load(fname, uEdgesPlusDEdgesToUdEdges)) {
+            Progress.message("creating " + fname + " table...");
 
             CubieCube cU = new CubieCube();
             CubieCube cD = new CubieCube();
@@ -598,30 +598,43 @@ public class PruningTables {
                             }
                             uEdgesPlusDEdgesToUdEdges[N_PERM_4 * i + k] = (short) cUd.getUdEdges();
                             cnt++;
-                            if (cnt % 8000 == 0) System.out.print(".");
+                            if (cnt % 8000 == 0) Progress.tick();
                         }
                     }
                 }
             }
-            System.out.println();
-            saveShortArray(fname, uEdgesPlusDEdgesToUdEdges);
+            TableFile.save(fname, uEdgesPlusDEdgesToUdEdges);
         }
     }
 
     // ========================= UbigPF table (optimal solver) =========================
     
-    private static void createUbigPFTable() {
+    /**
+     * Check the data of the memory-mapped tables against their checksums, which mapping skips to keep
+     * startup fast, and delete a corrupt one so that initOptimal() rebuilds it. Headerless legacy files
+     * are kept, initOptimal() upgrades them in place. GenerateTables runs this before loading; it has no
+     * effect on tables that are already mapped.
+     * @return whether no mapped table had to be deleted
+     */
+    public static boolean verifyMappedTables() {
         String fname = "ubigPF";
-        File f = new File(fname);
-        long expectedSize = (long) N_TETRA * BYTES_PER_TETRA;
+        if (TableFile.verify(fname)) return true;
+        Progress.message(fname + " will be rebuilt.");
+        try {
+            Files.deleteIfExists(TableFile.resolve(fname));
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot delete corrupt " + fname, e);
+        }
+        return false;
+    }
 
-        if (f.exists() && f.length() == expectedSize) {
-            System.out.println("loading " + fname + " table...");
-            ubigPF = new byte[(int) expectedSize];
-            loadByteArray(fname, ubigPF);
-        } else {
-            System.out.println("creating ubigPF table...");
-            System.out.println("This may take some time depending on the hardware.");
+    private static void createUbigPFTable() {
+        String fname = "ubigPF";
+        Progress.message("mapping " + fname + " table...");
+        ubigPF = TableFile.map(fname, (long) N_TETRA * BYTES_PER_TETRA, BYTES_PER_TETRA);
+        if (ubigPF == null) {
+            Progress.message("creating ubigPF table...");
+            Progress.message("This may take some time depending on the hardware.");
             buildUbigPFInMemory();
             // File already saved by buildUbigPFInMemory, no need to save again
         }
@@ -641,6 +654,21 @@ public class PruningTables {
         A[base] = (A[base] & mask) | (v << (off * 2));
     }
 
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+
+    // Atomically change the 2-bit entry at idx from 3 (unvisited) to v.
+    // Returns false if the entry was already visited, possibly by another thread.
+    private static boolean cas2(int[] A, long idx, int v) {
+        int base = (int)(idx >> 4);
+        int shift = (int)(idx & 15) * 2;
+        int mask = 3 << shift;
+        while (true) {
+            int w = (int) INT_ARRAY.getVolatile(A, base);
+            if ((w & mask) != mask) return false;
+            if (INT_ARRAY.compareAndSet(A, base, w, (w & ~mask) | (v << shift))) return true;
+        }
+    }
+
     // Check if there are any entries with value 3 in a packed word
     private static int posOf3s(int x) {
         return x & (x >>> 1) & 0x55555555;  // >>> for unsigned/logical shift
@@ -653,6 +681,105 @@ public class PruningTables {
         return f & (s >>> 1) & 0x55555555;  // >>> for unsigned/logical shift
     }
 
+    // Expand one BFS depth for the flipslice classes [fsFrom, fsTo) of one tetra layer.
+    // Entries only ever change from 3 (unvisited) to a depth value and every write goes through cas2(),
+    // so the tasks of one depth can run concurrently and the result does not depend on their order.
+    private static long sweepUbigLayer(int[][] tmp, int[] fsSym, int tetra, int fsFrom, int fsTo,
+                                       int depth, boolean backsearch) {
+        int depth3 = depth % 3;
+        long done = 0;
+        int[] layer = tmp[tetra];
+        long idx = (long) N_TWIST * fsFrom;
+        for (int fsClassidx = fsFrom; fsClassidx < fsTo; fsClassidx++) {
+            int rep = SymmetryTables.flipsliceRep[fsClassidx];
+            int slice = rep / N_FLIP;
+            int flip = rep % N_FLIP;
+            for (int twist = 0; twist < N_TWIST; twist++, idx++) {
+                // Skip optimization: skip 16 entries if none match what we're looking for
+                if (!backsearch && (idx & 15) == 0 && posOfMsk(layer[(int)(idx >> 4)], depth3) == 0 && twist < N_TWIST - 16) {
+                    twist += 15;
+                    idx += 15;
+                    continue;
+                }
+                if (backsearch && (idx & 15) == 0 && posOf3s(layer[(int)(idx >> 4)]) == 0 && twist < N_TWIST - 16) {
+                    twist += 15;
+                    idx += 15;
+                    continue;
+                }
+
+                boolean match = backsearch ? (get2(layer, idx) == 3) : (get2(layer, idx) == depth3);
+                if (!match) continue;
+
+                for (int m = 0; m < N_MOVE; m++) {
+                    int twist1 = MoveTables.twistMove[N_MOVE * twist + m] & 0xFFFF;
+                    int flip1 = MoveTables.flipMove[N_MOVE * flip + m] & 0xFFFF;
+                    int slice1 = (MoveTables.sliceSortedMove[(N_MOVE * N_PERM_4) * slice + m] & 0xFFFF) / N_PERM_4;
+                    int tetra1 = MoveTables.tetraMove[N_MOVE * tetra + m] & 0xFFFF;
+
+                    int flipslice1 = N_FLIP * slice1 + flip1;
+                    int fs1ClassSym = SymmetryTables.flipsliceClassSym[flipslice1];
+                    int fs1Classidx = SymmetryTables.classidx(fs1ClassSym);
+                    int fs1Sym = SymmetryTables.sym(fs1ClassSym);
+
+                    int twist1C = SymmetryTables.twistConj[(twist1 << 4) + fs1Sym] & 0xFFFF;
+                    int tetra1C = SymmetryTables.tetraConj[N_SYM_D4h * tetra1 + fs1Sym] & 0xFFFF;
+
+                    long idx1 = (long) N_TWIST * fs1Classidx + twist1C;
+                    int[] layer1 = tmp[tetra1C];
+
+                    if (!backsearch) {
+                        int val = (depth + 1) % 3;
+                        if (get2(layer1, idx1) == 3 && cas2(layer1, idx1, val)) {
+                            done++;
+
+                            // Fill symmetric variants
+                            int mask = fsSym[fs1Classidx];
+                            if (mask != 1) {
+                                for (int k = 1; k < N_SYM_D4h; k++) {
+                                    mask >>= 1;
+                                    if ((mask & 1) != 0) {
+                                        int twist2 = SymmetryTables.twistConj[(twist1C << 4) + k] & 0xFFFF;
+                                        int tetra2 = SymmetryTables.tetraConj[N_SYM_D4h * tetra1C + k] & 0xFFFF;
+                                        long idx2 = (long) N_TWIST * fs1Classidx + twist2;
+                                        int[] layer2 = tmp[tetra2];
+                                        if (get2(layer2, idx2) == 3 && cas2(layer2, idx2, val)) {
+                                            done++;
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    } else {
+                        if (get2(layer1, idx1) == depth3) {
+                            int val = (depth + 1) % 3;
+                            // A symmetric variant found by another task may have been filled meanwhile
+                            if (cas2(layer, idx, val)) done++;
+
+                            // Fill symmetric variants
+                            int mask = fsSym[fsClassidx];
+                            if (mask != 1) {
+                                for (int k = 1; k < N_SYM_D4h; k++) {
+                                    mask >>= 1;
+                                    if ((mask & 1) != 0) {
+                                        int twist2 = SymmetryTables.twistConj[(twist << 4) + k] & 0xFFFF;
+                                        int tetra2 = SymmetryTables.tetraConj[N_SYM_D4h * tetra + k] & 0xFFFF;
+                                        long idx2 = (long) N_TWIST * fsClassidx + twist2;
+                                        int[] layer2 = tmp[tetra2];
+                                        if (get2(layer2, idx2) == 3 && cas2(layer2, idx2, val)) {
+                                            done++;
+                                        }
+                                    }
+                                }
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return done;
+    }
+
     private static void buildUbigPFInMemory() {
         long totalEntries = (long) N_TETRA * ENTRIES_PER_TETRA;
         
@@ -664,24 +791,21 @@ public class PruningTables {
 
         // Build symmetry masks for flipslice classes
         int[] fsSym = new int[N_FLIPSLICE_CLASS];
-        System.out.print("Building flipslice symmetry table");
+        Progress.message("Building flipslice symmetry table");
         CubieCube c = new CubieCube();
         for (int i = 0; i < N_FLIPSLICE_CLASS; i++) {
-            if ((i + 1) % 1000 == 0) System.out.print(".");
+            if ((i + 1) % 1000 == 0) Progress.tick();
             int rep = SymmetryTables.flipsliceRep[i];
             int slice = rep / N_FLIP;
             int flip = rep % N_FLIP;
             c.setSlice(slice);
             c.setFlip(flip);
+            PackedCube pc = PackedCube.of(c);
             for (int s = 0; s < N_SYM_D4h; s++) {
-                CubieCube ss = new CubieCube(SymmetryTables.symCube[s].getCpArray(), SymmetryTables.symCube[s].getCoArray(),
-                                              SymmetryTables.symCube[s].getEpArray(), SymmetryTables.symCube[s].getEoArray());
-                ss.edgeMultiply(c);
-                ss.edgeMultiply(SymmetryTables.symCube[SymmetryTables.invIdx[s]]);
+                PackedCube ss = pc.conjugate(s);
                 if (ss.getSlice() == slice && ss.getFlip() == flip) fsSym[i] |= (1 << s);
             }
         }
-        System.out.println();
 
         long done = 0;
         // Solved state: tetra=0, flipslice_classidx=0, twist=0
@@ -690,116 +814,42 @@ public class PruningTables {
 
         int depth = 0;
         boolean backsearch = false;
+        ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
+        Progress.message("ubigPF generation using " + NUM_THREADS + " threads");
 
         while (done < totalEntries) {
-            System.out.println("ubigPF depth: " + depth + " done: " + done + "/" + totalEntries);
+            Progress.message("ubigPF depth: " + depth + " done: " + done + "/" + totalEntries);
             if (depth == 10) {
-                System.out.println("flipping to backwards search...");
+                Progress.message("flipping to backwards search...");
                 backsearch = true;
             }
-            int depth3 = depth % 3;
-
+            // Each task sweeps a slice of one tetra layer; writes into other layers go through cas2()
+            List<Callable<Long>> tasks = new ArrayList<>();
+            final int d = depth;
+            final boolean back = backsearch;
+            final int[][] layers = tmp;
             for (int tetra = 0; tetra < N_TETRA; tetra++) {
-                int[] layer = tmp[tetra];
-                long idx = 0;
-                for (int fsClassidx = 0; fsClassidx < N_FLIPSLICE_CLASS; fsClassidx++) {
-                    int rep = SymmetryTables.flipsliceRep[fsClassidx];
-                    int slice = rep / N_FLIP;
-                    int flip = rep % N_FLIP;
-                    for (int twist = 0; twist < N_TWIST; twist++, idx++) {
-                        // Skip optimization: skip 16 entries if none match what we're looking for
-                        if (!backsearch && (idx & 15) == 0 && posOfMsk(layer[(int)(idx >> 4)], depth3) == 0 && twist < N_TWIST - 16) {
-                            twist += 15;
-                            idx += 15;
-                            continue;
-                        }
-                        if (backsearch && (idx & 15) == 0 && posOf3s(layer[(int)(idx >> 4)]) == 0 && twist < N_TWIST - 16) {
-                            twist += 15;
-                            idx += 15;
-                            continue;
-                        }
-
-                        boolean match = backsearch ? (get2(layer, idx) == 3) : (get2(layer, idx) == depth3);
-                        if (!match) continue;
-
-                        for (int m = 0; m < N_MOVE; m++) {
-                            int twist1 = MoveTables.twistMove[N_MOVE * twist + m] & 0xFFFF;
-                            int flip1 = MoveTables.flipMove[N_MOVE * flip + m] & 0xFFFF;
-                            int slice1 = (MoveTables.sliceSortedMove[(N_MOVE * N_PERM_4) * slice + m] & 0xFFFF) / N_PERM_4;
-                            int tetra1 = MoveTables.tetraMove[N_MOVE * tetra + m] & 0xFFFF;
-
-                            int flipslice1 = N_FLIP * slice1 + flip1;
-                            int fs1Classidx = SymmetryTables.flipsliceClassidx[flipslice1] & 0xFFFF;
-                            int fs1Sym = SymmetryTables.flipsliceSym[flipslice1] & 0xFF;
-
-                            int twist1C = SymmetryTables.twistConj[(twist1 << 4) + fs1Sym] & 0xFFFF;
-                            int tetra1C = SymmetryTables.tetraConj[N_SYM_D4h * tetra1 + fs1Sym] & 0xFFFF;
-
-                            long idx1 = (long) N_TWIST * fs1Classidx + twist1C;
-                            int[] layer1 = tmp[tetra1C];
-
-                            if (!backsearch) {
-                                if (get2(layer1, idx1) == 3) {
-                                    int val = (depth + 1) % 3;
-                                    set2(layer1, idx1, val);
-                                    done++;
-
-                                    // Fill symmetric variants
-                                    int mask = fsSym[fs1Classidx];
-                                    if (mask != 1) {
-                                        for (int k = 1; k < N_SYM_D4h; k++) {
-                                            mask >>= 1;
-                                            if ((mask & 1) != 0) {
-                                                int twist2 = SymmetryTables.twistConj[(twist1C << 4) + k] & 0xFFFF;
-                                                int tetra2 = SymmetryTables.tetraConj[N_SYM_D4h * tetra1C + k] & 0xFFFF;
-                                                long idx2 = (long) N_TWIST * fs1Classidx + twist2;
-                                                int[] layer2 = tmp[tetra2];
-                                                if (get2(layer2, idx2) == 3) {
-                                                    set2(layer2, idx2, val);
-                                                    done++;
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            } else {
-                                if (get2(layer1, idx1) == depth3) {
-                                    int val = (depth + 1) % 3;
-                                    set2(layer, idx, val);
-                                    done++;
-
-                                    // Fill symmetric variants
-                                    int mask = fsSym[fsClassidx];
-                                    if (mask != 1) {
-                                        for (int k = 1; k < N_SYM_D4h; k++) {
-                                            mask >>= 1;
-                                            if ((mask & 1) != 0) {
-                                                int twist2 = SymmetryTables.twistConj[(twist << 4) + k] & 0xFFFF;
-                                                int tetra2 = SymmetryTables.tetraConj[N_SYM_D4h * tetra + k] & 0xFFFF;
-                                                long idx2 = (long) N_TWIST * fsClassidx + twist2;
-                                                int[] layer2 = tmp[tetra2];
-                                                if (get2(layer2, idx2) == 3) {
-                                                    set2(layer2, idx2, val);
-                                                    done++;
-                                                }
-                                            }
-                                        }
-                                    }
-                                    break;
-                                }
-                            }
-                        }
-                    }
+                for (int chunk = 0; chunk < UBIG_CHUNKS_PER_TETRA; chunk++) {
+                    final int t = tetra;
+                    final int from = (int) ((long) N_FLIPSLICE_CLASS * chunk / UBIG_CHUNKS_PER_TETRA);
+                    final int to = (int) ((long) N_FLIPSLICE_CLASS * (chunk + 1) / UBIG_CHUNKS_PER_TETRA);
+                    tasks.add(() -> sweepUbigLayer(layers, fsSym, t, from, to, d, back));
                 }
             }
+            try {
+                for (Future<Long> f : exec.invokeAll(tasks)) done += f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                exec.shutdownNow();
+                throw new IllegalStateException("ubigPF generation failed", e);
+            }
             depth++;
         }
-        System.out.println("ubigPF depth: " + depth + " done: " + done + "/" + totalEntries);
+        exec.shutdown();
+        Progress.message("ubigPF depth: " + depth + " done: " + done + "/" + totalEntries);
 
         // Pack tmp (2-bit) and write directly to file to avoid memory issues
-        System.out.println("Packing and saving ubigPF...");
-        try (FileOutputStream fos = new FileOutputStream("ubigPF");
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 1 << 20)) {
+        Progress.message("Packing and saving ubigPF...");
+        try (TableFile.Writer w = new TableFile.Writer("ubigPF", 1, (long) N_TETRA * BYTES_PER_TETRA)) {
             byte[] tetraBuffer = new byte[(int) BYTES_PER_TETRA];
             for (int tetra = 0; tetra < N_TETRA; tetra++) {
                 int[] layer = tmp[tetra];
@@ -811,108 +861,162 @@ public class PruningTables {
                     int v4 = get2(layer, 4L * G_SPLIT + i);
                     tetraBuffer[i] = pack5(v0, v1, v2, v3, v4);
                 }
-                bos.write(tetraBuffer);
+                w.write(tetraBuffer, 0, tetraBuffer.length);
                 tmp[tetra] = null; // Free this layer's memory
             }
         } catch (IOException e) {
             System.err.println("Error writing ubigPF: " + e.getMessage());
         }
         tmp = null; // Help GC
-        System.gc(); // Request garbage collection before loading
-        
-        // Now load the file into ubigPF array
-        System.out.println("Loading ubigPF into memory...");
-        ubigPF = new byte[(int)((long) N_TETRA * BYTES_PER_TETRA)];
-        loadByteArray("ubigPF", ubigPF);
-        System.out.println("ubigPF build complete.");
+        System.gc(); // Release the 2-bit build layers before mapping
+
+        // Map the freshly written file instead of copying it back onto the heap
+        Progress.message("Mapping ubigPF...");
+        ubigPF = TableFile.map("ubigPF", (long) N_TETRA * BYTES_PER_TETRA, BYTES_PER_TETRA);
+        Progress.message("ubigPF build complete.");
+    }
+
+    // ========================= Page warm-up =========================
+
+    // Heap tables are touched in pieces of this many ints, one read per page
+    private static final int WARM_CHUNK_INTS = 1 << 24;
+    private static final int PAGE_INTS = 4096 / 4;
+    private static final int PAGE_BYTES = 4096;
+    // Keeps the touching reads from being optimized away
+    private static volatile long warmSink;
+
+    /**
+     * Bring every page of the loaded pruning tables into memory, in parallel, so that the first solve
+     * does not pay for the page faults. The mapped ubigPF segments go through MappedByteBuffer.load(),
+     * which advises the OS and touches each page; the heap tables get one read per page.
+     * Runs at the end of initOptimal() with -Dcube.tables.warmup=true, or may be called at any time after init.
+     * @return the time taken in milliseconds
+     */
+    public static long warmUp() {
+        long start = System.currentTimeMillis();
+        List<Callable<Long>> tasks = new ArrayList<>();
+        long bytes = 0;
+        if (ubigPF != null) {
+            for (MappedByteBuffer layer : ubigPF) {
+                tasks.add(() -> {
+                    layer.load();
+                    return (long) layer.get(0);
+                });
+                bytes += layer.capacity();
+            }
+        }
+        for (int[] table : new int[][] {flipslicesortedTwistDepth3, flipsliceTwistDepth3, cornersUdEdgesDepth3}) {
+            if (table == null) continue;
+            for (int from = 0; from < table.length; from += WARM_CHUNK_INTS) {
+                final int f = from;
+                final int to = (int) Math.min((long) from + WARM_CHUNK_INTS, table.length);
+                tasks.add(() -> {
+                    long sum = 0;
+                    for (int i = f; i < to; i += PAGE_INTS) sum += table[i];
+                    return sum;
+                });
+            }
+            bytes += 4L * table.length;
+        }
+        for (byte[] table : new byte[][] {cornerDepth, cornsliceDepth}) {
+            if (table == null) continue;
+            tasks.add(() -> {
+                long sum = 0;
+                for (int i = 0; i < table.length; i += PAGE_BYTES) sum += table[i];
+                return sum;
+            });
+            bytes += table.length;
+        }
+
+        Progress.message("Warming up " + (bytes >> 20) + "MB of pruning tables...");
+        ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
+        long sink = 0;
+        try {
+            for (Future<Long> fut : exec.invokeAll(tasks)) sink += fut.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("pruning table warm-up failed", e.getCause());
+        } finally {
+            exec.shutdown();
+        }
+        warmSink = sink;
+        long elapsed = System.currentTimeMillis() - start;
+        Progress.message("Pruning tables warmed up in " + elapsed + "ms");
+        return elapsed;
     }
 
     // ========================= Main init =========================
     
-    public static void init() {
-        if (initialized) return;
-        System.out.println("Initializing pruning tables...");
-
+    private static synchronized void initBase() {
+        if (baseLoaded) return;
         buildDistance();
         initGetpacked();
+        baseLoaded = true;
+    }
 
-        createCornerPrunTable();
+    // Pruning tables of the two-phase solver (flipslice-twist, corners-udedges, cornslice and the
+    // edge merge table), together with the move and symmetry tables they are built from
+    public static synchronized void initTwoPhase() {
+        if (twoPhaseLoaded) return;
+        MoveTables.initTwoPhase();
+        SymmetryTables.initTwoPhase();
+        Progress.message("Initializing two-phase pruning tables...");
+        initBase();
         createPhase1PrunTable();
-        createPhase1x24PrunTable();
         createPhase2PrunTable();
         createPhase2CornslicePrunTable();
         initPhase2EdgeMergeTable();
-        createUbigPFTable();
-
-        initialized = true;
-        System.out.println("Pruning tables initialized.");
+        twoPhaseLoaded = true;
+        Progress.message("Two-phase pruning tables initialized.");
     }
 
-    // ========================= I/O helpers =========================
-    
-    private static void saveIntArray(String fname, int[] arr) {
-        try (FileOutputStream fos = new FileOutputStream(fname);
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 65536)) {
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.allocate(arr.length * 4);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asIntBuffer().put(arr);
-            bos.write(bb.array());
-        } catch (IOException e) {
-            System.err.println("Error saving " + fname + ": " + e.getMessage());
-        }
+    // Pruning tables of the optimal solver (corner, plus phasex24 and/or ubigPF as the optimal tier
+    // selects), together with the move and symmetry tables they are built from
+    public static synchronized void initOptimal() {
+        if (optimalLoaded) return;
+        OptimalTier tier = getOptimalTier();
+        MoveTables.initOptimal();
+        SymmetryTables.initOptimal();
+        if (tier.hasPhasex24()) SymmetryTables.initFlipslicesorted();
+        Progress.message("Initializing optimal pruning tables (" + tier + ")...");
+        initBase();
+        createCornerPrunTable();
+        if (tier.hasPhasex24()) createPhase1x24PrunTable();
+        if (tier.hasUbig()) createUbigPFTable();
+        phasex24Loaded = tier.hasPhasex24();
+        ubigLoaded = tier.hasUbig();
+        optimalLoaded = true;
+        Progress.message("Optimal pruning tables initialized.");
+        if (Boolean.getBoolean("cube.tables.warmup")) warmUp();
     }
 
-    private static void loadIntArray(String fname, int[] arr) {
-        try (FileInputStream fis = new FileInputStream(fname);
-             BufferedInputStream bis = new BufferedInputStream(fis, 65536)) {
-            byte[] bytes = bis.readAllBytes();
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap(bytes);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asIntBuffer().get(arr);
-        } catch (IOException e) {
-            System.err.println("Error loading " + fname + ": " + e.getMessage());
+    // Choose the optimal solver heuristics; only possible before the optimal tables are loaded
+    public static synchronized void setOptimalTier(OptimalTier tier) {
+        if (optimalLoaded && tier != optimalTier) {
+            throw new IllegalStateException("optimal tables are already loaded as " + optimalTier);
         }
+        optimalTier = tier;
     }
 
-    private static void saveShortArray(String fname, short[] arr) {
-        try (FileOutputStream fos = new FileOutputStream(fname);
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 65536)) {
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.allocate(arr.length * 2);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asShortBuffer().put(arr);
-            bos.write(bb.array());
-        } catch (IOException e) {
-            System.err.println("Error saving " + fname + ": " + e.getMessage());
-        }
+    public static synchronized OptimalTier getOptimalTier() {
+        if (optimalTier == null) optimalTier = OptimalTier.fromSystemProperties();
+        return optimalTier;
     }
 
-    private static void loadShortArray(String fname, short[] arr) {
-        try (FileInputStream fis = new FileInputStream(fname);
-             BufferedInputStream bis = new BufferedInputStream(fis, 65536)) {
-            byte[] bytes = bis.readAllBytes();
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap(bytes);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asShortBuffer().get(arr);
-        } catch (IOException e) {
-            System.err.println("Error loading " + fname + ": " + e.getMessage());
-        }
+    // Whether the phasex24 heuristic is loaded and may be looked up
+    public static boolean hasPhasex24() {
+        return phasex24Loaded;
     }
 
-    private static void saveByteArray(String fname, byte[] arr) {
-        try (FileOutputStream fos = new FileOutputStream(fname);
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 65536)) {
-            bos.write(arr);
-        } catch (IOException e) {
-            System.err.println("Error saving " + fname + ": " + e.getMessage());
-        }
+    // Whether the ubigPF heuristic is loaded and may be looked up
+    public static boolean hasUbig() {
+        return ubigLoaded;
     }
 
-    private static void loadByteArray(String fname, byte[] arr) {
-        try (FileInputStream fis = new FileInputStream(fname);
-             BufferedInputStream bis = new BufferedInputStream(fis, 65536)) {
-            bis.read(arr);
-        } catch (IOException e) {
-            System.err.println("Error loading " + fname + ": " + e.getMessage());
-        }
+    // All pruning tables of both solvers, the optimal ones in the configured tier
+    public static void init() {
+        initTwoPhase();
+        initOptimal();
     }
 }
@@ -4,6 +4,11 @@ import cube.model.face.FaceCube;
 import cube.model.cubie.CubieCube;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Abstract base class for all Rubik's Cube solvers.
@@ -18,6 +23,15 @@ public abstract class AbstractSolver implements Solver {
         "D", "D2", "D'", "L", "L2", "L'", "B", "B2", "B'"
     };
 
+    // Runs the coordinating part of async solves. Those threads mostly wait for the solvers'
+    // own worker pools, so the pool is unbounded; daemon threads so it never keeps the JVM alive.
+    private static final AtomicInteger ASYNC_ID = new AtomicInteger(0);
+    static final ExecutorService ASYNC = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "solver-async-" + ASYNC_ID.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Template method - solve with default parameters.
      * Calls the abstract methods to get defaults, then delegates to full solve.
@@ -27,6 +41,47 @@ public abstract class AbstractSolver implements Solver {
         return solve(cubeString, getDefaultMaxLength(), getDefaultTimeout());
     }
 
+    /**
+     * Solve without external cancellation or deadline.
+     */
+    @Override
+    public SolveResult solve(String cubeString, int maxLength, double timeout) {
+        return solve(cubeString, maxLength, timeout, new SolveControl());
+    }
+
+    /**
+     * Run solve() on a background thread. The future completing for any other reason than the
+     * solve returning (cancel(), completeExceptionally(), orTimeout(), ...) stops the search.
+     */
+    @Override
+    public CompletableFuture<SolveResult> solveAsync(String cubeString, int maxLength, double timeout, double deadline) {
+        return runAsync(deadline, control -> solve(cubeString, maxLength, timeout, control));
+    }
+
+    /**
+     * Run a solve on a background thread with a fresh SolveControl that expires after deadline seconds
+     * and is cancelled when the returned future completes exceptionally.
+     */
+    protected CompletableFuture<SolveResult> runAsync(double deadline, Function<SolveControl, SolveResult> solve) {
+        SolveControl control = new SolveControl(deadline);
+        CompletableFuture<SolveResult> future = CompletableFuture.supplyAsync(() -> solve.apply(control), ASYNC);
+        future.whenComplete((result, error) -> {
+            if (error != null) control.cancel();
+        });
+        return future;
+    }
+
+    /**
+     * Result for a solve that was stopped through its SolveControl before finding a solution.
+     */
+    protected SolveResult stoppedResult(SolveControl control, long nodes) {
+        return stoppedResult(control, nodes, null);
+    }
+
+    protected SolveResult stoppedResult(SolveControl control, long nodes, SolveStats stats) {
+        return new SolveResult(false, control.isCancelled() ? "Search cancelled" : "Deadline exceeded", nodes, stats);
+    }
+
     /**
      * Render a solution as a human-readable string.
      * Uses getSolutionSuffix() which can be overridden by subclasses.
@@ -34,11 +89,21 @@ public abstract class AbstractSolver implements Solver {
      * @return Formatted solution string
      */
     protected String renderSolution(List<Integer> moves) {
+        return renderSolution(moves, getSolutionSuffix());
+    }
+
+    /**
+     * Render a solution with an explicit length suffix.
+     * @param moves List of move indices
+     * @param suffix "f", or "f*" for a solution known to be optimal
+     * @return Formatted solution string
+     */
+    protected String renderSolution(List<Integer> moves, String suffix) {
         StringBuilder sb = new StringBuilder();
         for (int m : moves) {
             sb.append(MOVE_NAMES[m]).append(" ");
         }
-        sb.append("(").append(moves.size()).append(getSolutionSuffix()).append(")");
+        sb.append("(").append(moves.size()).append(suffix).append(")");
         return sb.toString();
     }
 
@@ -6,12 +6,20 @@ import cube.model.coord.CoordCube;
 import cube.moves.MoveTables;
 import cube.symmetry.SymmetryTables;
 import cube.pruning.PruningTables;
+import cube.progress.Progress;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntSupplier;
 
 import static cube.model.cubie.Defs.*;
 
@@ -22,10 +30,27 @@ import static cube.model.cubie.Defs.*;
  */
 public class OptimalSolver extends AbstractSolver {
 
-    private static final AtomicBoolean solFound = new AtomicBoolean(false);
-    private static final AtomicLong nodeCount = new AtomicLong(0);
-    private static volatile List<Integer> solutionMoves = new ArrayList<>();
-    private static final Object solutionLock = new Object();
+    // Long-lived work-stealing pool shared by every optimal solve in this JVM
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    // Subtrees are split off on demand: only while they still have at least MIN_SPLIT_TOGO moves to go,
+    // and only while the current worker has fewer than MAX_SURPLUS_TASKS unclaimed tasks queued
+    private static final int MIN_SPLIT_TOGO = 6;
+    private static final int MAX_SURPLUS_TASKS = 2;
+
+    // Each task polls the SolveControl once every STOP_POLL_MASK + 1 nodes
+    private static final int STOP_POLL_MASK = 4095;
+
+    // Indices of the prune counters, as constants for the inner loop
+    private static final int P_CORNER = SolveStats.Prune.CORNER.ordinal();
+    private static final int P_UD_X24 = SolveStats.Prune.UD_PHASEX24.ordinal();
+    private static final int P_RL_X24 = SolveStats.Prune.RL_PHASEX24.ordinal();
+    private static final int P_FB_X24 = SolveStats.Prune.FB_PHASEX24.ordinal();
+    private static final int P_3AX_X24 = SolveStats.Prune.THREE_AXIS_PHASEX24.ordinal();
+    private static final int P_UD_BIG = SolveStats.Prune.UD_BIG.ordinal();
+    private static final int P_RL_BIG = SolveStats.Prune.RL_BIG.ordinal();
+    private static final int P_FB_BIG = SolveStats.Prune.FB_BIG.ordinal();
+    private static final int P_3AX_BIG = SolveStats.Prune.THREE_AXIS_BIG.ordinal();
 
     // ========== Solver interface implementation ==========
 
@@ -58,15 +83,39 @@ public class OptimalSolver extends AbstractSolver {
         return "f*";
     }
 
+    /**
+     * Corner, phasex24 and ubigPF pruning tables, plus the move and symmetry tables behind them.
+     * ubigPF is memory-mapped (about 2GB), phasex24 takes about 830MB of heap.
+     */
+    @Override
+    public void loadTables() {
+        MoveTables.initOptimal();
+        SymmetryTables.initOptimal();
+        PruningTables.initOptimal();
+    }
+
+    /**
+     * The timeout is a hard limit for the optimal solver: when it (or the control's own deadline)
+     * passes, the search stops without a solution.
+     */
     @Override
-    public SolveResult solve(String cubeString, int maxLength, double timeout) {
+    public SolveResult solve(String cubeString, int maxLength, double timeout, SolveControl control) {
+        loadTables();
         FaceCube.Result validation = validateCube(cubeString);
         if (!validation.isSuccess()) {
             return new SolveResult(false, validation.getMessage());
         }
 
         FaceCube fc = parseFaceCube(cubeString);
-        CubieCube cc = fc.toCubieCube();
+        return solveBounded(fc.toCubieCube(), () -> maxLength, timeout, control);
+    }
+
+    /**
+     * IDA* search for a solution shorter than maxLength, where the bound may shrink while the search
+     * runs (SmartOptimalSolver lowers it whenever the two-phase search finds a shorter solution).
+     * An iteration whose depth reaches the bound is abandoned: a solution of that length is already known.
+     */
+    SolveResult solveBounded(CubieCube cc, IntSupplier maxLength, double timeout, SolveControl control) {
         CoordCube coc = new CoordCube(cc);
 
         int udBig = coc.getUbigDepth(0);
@@ -77,104 +126,95 @@ public class OptimalSolver extends AbstractSolver {
                            Math.max(coc.getFbPhasex24Depth(), udBig)),
                            Math.max(rlBig, fbBig));
 
-        solFound.set(false);
-        solutionMoves = new ArrayList<>();
+        // All mutable search state belongs to this solve, so concurrent solves don't interfere
+        SearchContext ctx = new SearchContext(control.withTimeout(timeout), maxLength, rootMoves(cc));
+        SolveStats.Builder stats = new SolveStats.Builder(getName());
+        stats.setThreads(POOL.getParallelism());
         long startTime = System.currentTimeMillis();
         long totalNodes = 0;
-        nodeCount.set(0);
-
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        if (numThreads == 0) numThreads = 1;
-        final int splitDepth = 4;
 
-        while (!solFound.get() && togo < maxLength) {
+        while (!ctx.isStopped() && !ctx.control.shouldStop() && togo < maxLength.getAsInt()) {
             long sTime = System.currentTimeMillis();
-            totalNodes += nodeCount.get();
-            nodeCount.set(0);
-
-            if (togo <= splitDepth) {
-                List<Integer> path = new ArrayList<>();
-                search(coc.getUdFlip(), coc.getRlFlip(), coc.getFbFlip(),
-                       coc.getUdTwist(), coc.getRlTwist(), coc.getFbTwist(),
-                       coc.getUdSliceSorted(), coc.getRlSliceSorted(), coc.getFbSliceSorted(),
-                       coc.getCorners(),
-                       coc.getUdPhasex24Depth(), coc.getRlPhasex24Depth(), coc.getFbPhasex24Depth(),
-                       udBig, rlBig, fbBig,
-                       coc.getUdTetra(), coc.getRlTetra(), coc.getFbTetra(),
-                       togo,
-                       path, 0, null);
-            } else {
-                List<SearchJob> jobs = new ArrayList<>();
-                List<Integer> path0 = new ArrayList<>();
-
-                search(coc.getUdFlip(), coc.getRlFlip(), coc.getFbFlip(),
-                       coc.getUdTwist(), coc.getRlTwist(), coc.getFbTwist(),
-                       coc.getUdSliceSorted(), coc.getRlSliceSorted(), coc.getFbSliceSorted(),
-                       coc.getCorners(),
-                       coc.getUdPhasex24Depth(), coc.getRlPhasex24Depth(), coc.getFbPhasex24Depth(),
-                       udBig, rlBig, fbBig,
-                       coc.getUdTetra(), coc.getRlTetra(), coc.getFbTetra(),
-                       togo,
-                       path0, splitDepth, jobs);
-
-                if (!solFound.get() && !jobs.isEmpty()) {
-                    int threadCount = Math.min(numThreads, jobs.size());
-                    AtomicInteger jobIndex = new AtomicInteger(0);
-                    Thread[] workers = new Thread[threadCount];
-
-                    for (int t = 0; t < threadCount; t++) {
-                        workers[t] = new Thread(() -> {
-                            List<Integer> localPath = new ArrayList<>();
-                            while (!solFound.get()) {
-                                int i = jobIndex.getAndIncrement();
-                                if (i >= jobs.size()) break;
-                                SearchJob job = jobs.get(i);
-                                localPath.clear();
-                                localPath.addAll(job.path);
-                                search(job.udFlip, job.rlFlip, job.fbFlip,
-                                       job.udTwist, job.rlTwist, job.fbTwist,
-                                       job.udSliceSorted, job.rlSliceSorted, job.fbSliceSorted,
-                                       job.corners,
-                                       job.udDist, job.rlDist, job.fbDist,
-                                       job.udBig, job.rlBig, job.fbBig,
-                                       job.udTetra, job.rlTetra, job.fbTetra,
-                                       job.togo,
-                                       localPath, 0, null);
-                            }
-                        });
-                        workers[t].start();
-                    }
-
-                    for (Thread worker : workers) {
-                        try { worker.join(); } catch (InterruptedException e) { }
-                    }
-                }
+            ctx.startIteration(togo);
+
+            SubtreeTask root = new SubtreeTask(ctx,
+                    coc.getUdFlip(), coc.getRlFlip(), coc.getFbFlip(),
+                    coc.getUdTwist(), coc.getRlTwist(), coc.getFbTwist(),
+                    coc.getUdSliceSorted(), coc.getRlSliceSorted(), coc.getFbSliceSorted(),
+                    coc.getUdFlipslicesorted(), coc.getRlFlipslicesorted(), coc.getFbFlipslicesorted(),
+                    coc.getCorners(),
+                    coc.getUdPhasex24Depth(), coc.getRlPhasex24Depth(), coc.getFbPhasex24Depth(),
+                    udBig, rlBig, fbBig,
+                    coc.getUdTetra(), coc.getRlTetra(), coc.getFbTetra(),
+                    togo,
+                    new int[0]);
+            POOL.execute(root);
+            try {
+                root.get();
+            } catch (InterruptedException e) {
+                // Caller gave up on this solve: stop the workers, then wait for them
+                ctx.control.cancel();
+                ctx.cancelled.set(true);
+                Thread.currentThread().interrupt();
+                root.quietlyJoin();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Optimal search failed", e.getCause());
             }
 
-            if (togo > 13) {
+            long n = ctx.nodeCount.get();
+            totalNodes += n;
+            stats.add(togo, n, ctx.prunedSnapshot(), System.currentTimeMillis() - sTime,
+                      ctx.tasks.get(), ctx.peakQueued.get());
+            if (togo > 13 && Progress.isEnabled()) {
                 double elapsed = (System.currentTimeMillis() - sTime) / 1000.0 + 0.0001;
-                long n = nodeCount.get();
-                System.out.println("depth " + togo + " done in " + String.format("%.2f", elapsed) + " s, " +
-                                   n + " nodes generated, about " + (long)(n / elapsed) + " nodes/s");
+                Progress.message("depth " + togo + " done in " + String.format("%.2f", elapsed) + " s, " +
+                                   n + " nodes generated, about " + (long)(n / elapsed) + " nodes/s, " +
+                                   POOL.getParallelism() + " threads");
             }
             togo++;
         }
 
-        double totalTime = (System.currentTimeMillis() - startTime) / 1000.0;
-        System.out.println("total time: " + String.format("%.2f", totalTime) + " s, nodes generated: " + 
-                           (totalNodes + nodeCount.get()));
-
-        if (togo == maxLength && !solFound.get()) {
-            return new SolveResult(false, "Proved Optimal (no solution within " + (maxLength - 1) + " moves)");
+        SolveStats solveStats = stats.build();
+        SolverMetrics.of(getClass()).record(solveStats);
+        if (Progress.isEnabled()) {
+            double totalTime = (System.currentTimeMillis() - startTime) / 1000.0;
+            Progress.message("total time: " + String.format("%.2f", totalTime) + " s, nodes generated: " + totalNodes);
         }
 
-        List<Integer> solution;
-        synchronized (solutionLock) {
-            solution = new ArrayList<>(solutionMoves);
+        if (!ctx.solFound.get()) {
+            if (ctx.control.shouldStop()) {
+                return stoppedResult(ctx.control, totalNodes, solveStats);
+            }
+            return new SolveResult(false, "Proved Optimal (no solution within " + (maxLength.getAsInt() - 1) + " moves)",
+                                   totalNodes, solveStats);
         }
 
+        List<Integer> solution = ctx.getSolution();
+
         String solutionStr = renderSolution(solution);
-        return new SolveResult(true, solutionStr, solution);
+        return new SolveResult(true, solutionStr, solution, totalNodes, solveStats);
+    }
+
+    /**
+     * The first moves worth searching, as a bit mask over the moves. If a symmetry S of the cube maps
+     * move m to m' = S m S^-1, conjugating any solution that starts with m' by S gives a solution of
+     * the same length that starts with m, so only the smallest move of each such orbit is searched.
+     * Antisymmetries relate solutions to inverse solutions and say nothing about the first move.
+     *
+     * A conjugated solution can have an opposite-face pair in the order the search never generates
+     * (D U rather than U D). Past the first move, swapping such pairs fixes that without changing
+     * the first move. Right after it the pair cannot be swapped, so a reduced root lets opposite
+     * faces follow in either order at depth 1.
+     */
+    static int rootMoves(CubieCube cc) {
+        int mask = (1 << N_MOVE) - 1;
+        for (int s : cc.symmetries()) {
+            if (s >= N_SYM) continue;
+            for (int m = 0; m < N_MOVE; m++) {
+                if ((SymmetryTables.conjMove[N_MOVE * s + m] & 0xFFFF) < m) mask &= ~(1 << m);
+            }
+        }
+        return mask;
     }
 
     // ========== Static convenience methods for backward compatibility ==========
@@ -189,196 +229,402 @@ public class OptimalSolver extends AbstractSolver {
 
     // ========== Internal classes ==========
 
-    private static class SearchJob {
-        int udFlip, rlFlip, fbFlip;
-        int udTwist, rlTwist, fbTwist;
-        int udSliceSorted, rlSliceSorted, fbSliceSorted;
-        int corners;
-        int udDist, rlDist, fbDist;
-        int udBig, rlBig, fbBig;
-        int udTetra, rlTetra, fbTetra;
-        int togo;
-        List<Integer> path;
-    }
+    /**
+     * A subtree of the current IDA* iteration. Running it searches the subtree depth-first,
+     * forking child subtrees as new tasks whenever other workers are running out of work,
+     * then waits for (or helps with) the tasks it forked.
+     * The move stack, node and prune counters are local to the task, so the inner loop allocates
+     * nothing and touches no shared counters; the counts are merged into the context once
+     * the task finishes, i.e. before the iteration completes.
+     */
+    private static class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final SearchContext ctx;
+        final int udFlip, rlFlip, fbFlip;
+        final int udTwist, rlTwist, fbTwist;
+        final int udSliceSorted, rlSliceSorted, fbSliceSorted;
+        final int udFs, rlFs, fbFs;     // flipslicesorted sym-coordinates, classidx << 4 | sym
+        final int corners;
+        final int udDist, rlDist, fbDist;
+        final int udBig, rlBig, fbBig;
+        final int udTetra, rlTetra, fbTetra;
+        final int togo;
+        final int[] path;
+
+        // Per-task search state
+        private int[] moves;
+        private long nodes;
+        private long[] pruned;
+        private List<SubtreeTask> forked;
+
+        // Children of the nodes on the current path, N_MOVE slots per togo (see search). Per child:
+        // move and corners; per child and axis (3 * slot + axis, UD/RL/FB): the coordinates, the phasex24
+        // index, the ubigPF address, the looked-up mod-3 value and the phasex24 distance
+        private int[] cMove, cCorners, cLive;
+        private int[] cTwist, cFs, cFlip, cSliceSorted, cTetra;
+        private long[] cIdx;
+        private int[] cBigTetra, cBigIdx, cMod3, cDist;
+
+        SubtreeTask(SearchContext ctx,
+                    int udFlip, int rlFlip, int fbFlip,
+                    int udTwist, int rlTwist, int fbTwist,
+                    int udSliceSorted, int rlSliceSorted, int fbSliceSorted,
+                    int udFs, int rlFs, int fbFs,
+                    int corners,
+                    int udDist, int rlDist, int fbDist,
+                    int udBig, int rlBig, int fbBig,
+                    int udTetra, int rlTetra, int fbTetra,
+                    int togo,
+                    int[] path) {
+            this.ctx = ctx;
+            this.udFlip = udFlip; this.rlFlip = rlFlip; this.fbFlip = fbFlip;
+            this.udTwist = udTwist; this.rlTwist = rlTwist; this.fbTwist = fbTwist;
+            this.udSliceSorted = udSliceSorted;
+            this.rlSliceSorted = rlSliceSorted;
+            this.fbSliceSorted = fbSliceSorted;
+            this.udFs = udFs; this.rlFs = rlFs; this.fbFs = fbFs;
+            this.corners = corners;
+            this.udDist = udDist; this.rlDist = rlDist; this.fbDist = fbDist;
+            this.udBig = udBig; this.rlBig = rlBig; this.fbBig = fbBig;
+            this.udTetra = udTetra; this.rlTetra = rlTetra; this.fbTetra = fbTetra;
+            this.togo = togo;
+            this.path = path;
+        }
 
-    private static void search(
-            int udFlip, int rlFlip, int fbFlip,
-            int udTwist, int rlTwist, int fbTwist,
-            int udSliceSorted, int rlSliceSorted, int fbSliceSorted,
-            int corners,
-            int udDist, int rlDist, int fbDist,
-            int udBig, int rlBig, int fbBig,
-            int udTetra, int rlTetra, int fbTetra,
-            int togo,
-            List<Integer> path,
-            int frontierDepthLeft,
-            List<SearchJob> jobs) {
-
-        if (solFound.get()) return;
-
-        if (togo == 0) {
-            if (corners == 0) {
-                if (solFound.compareAndSet(false, true)) {
-                    synchronized (solutionLock) {
-                        solutionMoves = new ArrayList<>(path);
-                    }
+        @Override
+        protected void compute() {
+            moves = Arrays.copyOf(path, path.length + togo);
+            pruned = new long[SolveStats.N_PRUNE];
+            forked = new ArrayList<>();
+            int slots = (togo + 1) * N_MOVE;
+            cMove = new int[slots];
+            cCorners = new int[slots];
+            cLive = new int[slots];
+            cTwist = new int[3 * slots];
+            cFs = new int[3 * slots];
+            cFlip = new int[3 * slots];
+            cSliceSorted = new int[3 * slots];
+            cTetra = new int[3 * slots];
+            cIdx = new long[3 * slots];
+            cBigTetra = new int[3 * slots];
+            cBigIdx = new int[3 * slots];
+            cMod3 = new int[3 * slots];
+            cDist = new int[3 * slots];
+            ctx.tasks.incrementAndGet();
+            search(udFlip, rlFlip, fbFlip,
+                   udTwist, rlTwist, fbTwist,
+                   udSliceSorted, rlSliceSorted, fbSliceSorted,
+                   udFs, rlFs, fbFs,
+                   corners,
+                   udDist, rlDist, fbDist,
+                   udBig, rlBig, fbBig,
+                   udTetra, rlTetra, fbTetra,
+                   togo,
+                   path.length);
+            ctx.nodeCount.addAndGet(nodes);
+            ctx.addPruned(pruned);
+            // Join newest first: those are the most likely to still sit in this worker's own queue
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                forked.get(i).join();
+            }
+        }
+
+        /*
+         * The children of a node are expanded in stages, so the random reads into the big pruning tables
+         * are issued back to back rather than one child at a time:
+         *   1. generate the children that pass the corner test, with their coordinates and phasex24 indices
+         *   2. look up phasex24 for all of them at once
+         *   3. apply the phasex24 tests
+         *   4. compute the ubigPF addresses of the survivors, then look them all up
+         *   5. apply the ubigPF tests, then recurse or fork in move order
+         * The lookups of stages 2 and 4 are independent of each other, so the CPU keeps several of their
+         * cache misses in flight instead of stalling on each in turn. Children are tested in the same
+         * order and against the same rules as a child-by-child search, so node and prune counts do not
+         * change. The per-child data lives in the task's c* buffers, one N_MOVE slice per togo.
+         */
+        private void search(
+                int udFlip, int rlFlip, int fbFlip,
+                int udTwist, int rlTwist, int fbTwist,
+                int udSliceSorted, int rlSliceSorted, int fbSliceSorted,
+                int udFs, int rlFs, int fbFs,
+                int corners,
+                int udDist, int rlDist, int fbDist,
+                int udBig, int rlBig, int fbBig,
+                int udTetra, int rlTetra, int fbTetra,
+                int togo,
+                int depth) {
+
+            if (ctx.isStopped()) return;
+
+            // Heuristics of the loaded OptimalTier; the lookups of missing tables are skipped
+            final boolean x24 = ctx.usePhasex24;
+            final boolean big = ctx.useUbig;
+
+            if (togo == 0) {
+                // Distance 0 in phasex24 on all axes means the edges are solved. ubigPF only knows which
+                // slice each edge is in, so without phasex24 the edge order is checked on the sorted slices
+                if (corners == 0 && (x24 || udSliceSorted == 0 && rlSliceSorted == 0 && fbSliceSorted == 0)) {
+                    ctx.setSolution(moves, depth);
                 }
+                return;
             }
-            return;
-        } else if (jobs != null && frontierDepthLeft == 0) {
-            SearchJob job = new SearchJob();
-            job.udFlip = udFlip; job.rlFlip = rlFlip; job.fbFlip = fbFlip;
-            job.udTwist = udTwist; job.rlTwist = rlTwist; job.fbTwist = fbTwist;
-            job.udSliceSorted = udSliceSorted;
-            job.rlSliceSorted = rlSliceSorted;
-            job.fbSliceSorted = fbSliceSorted;
-            job.corners = corners;
-            job.udDist = udDist; job.rlDist = rlDist; job.fbDist = fbDist;
-            job.udBig = udBig; job.rlBig = rlBig; job.fbBig = fbBig;
-            job.udTetra = udTetra; job.rlTetra = rlTetra; job.fbTetra = fbTetra;
-            job.togo = togo;
-            job.path = new ArrayList<>(path);
-            jobs.add(job);
-            return;
-        } else {
+
+            // Stage 1: children passing the corner test
+            final int base = togo * N_MOVE;
+            int n = 0;
             for (int m = 0; m < N_MOVE; m++) {
-                if (!path.isEmpty()) {
-                    int diff = path.get(path.size() - 1) / 3 - m / 3;
-                    if (diff == 0 || diff == 3) {
+                if (depth > 0) {
+                    int diff = moves[depth - 1] / 3 - m / 3;
+                    // Below a symmetry-reduced root, opposite faces may follow it in either order (see rootMoves)
+                    if (diff == 0 || diff == 3 && !(depth == 1 && ctx.reducedRoot)) {
                         m += 2;
                         continue;
                     }
+                } else if ((ctx.rootMoves >>> m & 1) == 0) {
+                    continue;
                 }
 
-                nodeCount.incrementAndGet();
+                if ((++nodes & STOP_POLL_MASK) == 0) {
+                    if (ctx.control.shouldStop() || ctx.boundReached()) {
+                        ctx.cancelled.set(true);
+                        return;
+                    }
+                    ctx.sampleQueue();
+                }
 
                 // Corner pruning
                 int corners1 = MoveTables.cornersMove[N_MOVE * corners + m] & 0xFFFF;
                 int coDist1 = PruningTables.cornerDepth[corners1] & 0xFF;
-                if (coDist1 >= togo) continue;
+                if (coDist1 >= togo) { pruned[P_CORNER]++; continue; }
 
-                // UD axis
-                int udTwist1 = MoveTables.twistMove[N_MOVE * udTwist + m] & 0xFFFF;
-                int udFlip1 = MoveTables.flipMove[N_MOVE * udFlip + m] & 0xFFFF;
-                int udSliceSorted1 = MoveTables.sliceSortedMove[N_MOVE * udSliceSorted + m] & 0xFFFF;
+                int c = base + n++;
+                int a = 3 * c;
+                cMove[c] = m;
+                cCorners[c] = corners1;
 
-                int fs = N_FLIP * udSliceSorted1 + udFlip1;
-                int fsIdx = SymmetryTables.flipslicesortedClassidx[fs];
-                int fsSym = SymmetryTables.flipslicesortedSym[fs] & 0xFF;
-
-                int udDist1Mod3 = PruningTables.getFlipslicesortedTwistDepth3(
-                    (long) N_TWIST * fsIdx + (SymmetryTables.twistConj[(udTwist1 << 4) + fsSym] & 0xFFFF));
-                int udDist1 = PruningTables.dist[3 * udDist + udDist1Mod3] & 0xFF;
-
-                if (udDist1 >= togo) continue;
-
-                // RL axis
+                // The move as seen from the RL and FB axes
                 int mrl = SymmetryTables.conjMove[N_MOVE * 16 + m] & 0xFFFF;
+                int mfb = SymmetryTables.conjMove[N_MOVE * 32 + m] & 0xFFFF;
 
-                int rlTwist1 = MoveTables.twistMove[N_MOVE * rlTwist + mrl] & 0xFFFF;
-                int rlFlip1 = MoveTables.flipMove[N_MOVE * rlFlip + mrl] & 0xFFFF;
-                int rlSliceSorted1 = MoveTables.sliceSortedMove[N_MOVE * rlSliceSorted + mrl] & 0xFFFF;
-
-                fs = N_FLIP * rlSliceSorted1 + rlFlip1;
-                fsIdx = SymmetryTables.flipslicesortedClassidx[fs];
-                fsSym = SymmetryTables.flipslicesortedSym[fs] & 0xFF;
-
-                int rlDist1Mod3 = PruningTables.getFlipslicesortedTwistDepth3(
-                    (long) N_TWIST * fsIdx + (SymmetryTables.twistConj[(rlTwist1 << 4) + fsSym] & 0xFFFF));
-                int rlDist1 = PruningTables.dist[3 * rlDist + rlDist1Mod3] & 0xFF;
-
-                if (rlDist1 >= togo) continue;
+                cTwist[a] = MoveTables.twistMove[N_MOVE * udTwist + m] & 0xFFFF;
+                cTwist[a + 1] = MoveTables.twistMove[N_MOVE * rlTwist + mrl] & 0xFFFF;
+                cTwist[a + 2] = MoveTables.twistMove[N_MOVE * fbTwist + mfb] & 0xFFFF;
 
-                // FB axis
-                int mfb = SymmetryTables.conjMove[N_MOVE * 32 + m] & 0xFFFF;
+                if (x24) {
+                    cFs[a] = moveFs(udFs, m);
+                    cFs[a + 1] = moveFs(rlFs, mrl);
+                    cFs[a + 2] = moveFs(fbFs, mfb);
+                    for (int i = a; i < a + 3; i++) cIdx[i] = phasex24Index(cFs[i], cTwist[i]);
+                }
 
-                int fbTwist1 = MoveTables.twistMove[N_MOVE * fbTwist + mfb] & 0xFFFF;
-                int fbFlip1 = MoveTables.flipMove[N_MOVE * fbFlip + mfb] & 0xFFFF;
-                int fbSliceSorted1 = MoveTables.sliceSortedMove[N_MOVE * fbSliceSorted + mfb] & 0xFFFF;
+                if (big) {
+                    // Raw flip and slice coordinates, only ubigPF indexes through them
+                    cFlip[a] = MoveTables.flipMove[N_MOVE * udFlip + m] & 0xFFFF;
+                    cFlip[a + 1] = MoveTables.flipMove[N_MOVE * rlFlip + mrl] & 0xFFFF;
+                    cFlip[a + 2] = MoveTables.flipMove[N_MOVE * fbFlip + mfb] & 0xFFFF;
+                    cSliceSorted[a] = MoveTables.sliceSortedMove[N_MOVE * udSliceSorted + m] & 0xFFFF;
+                    cSliceSorted[a + 1] = MoveTables.sliceSortedMove[N_MOVE * rlSliceSorted + mrl] & 0xFFFF;
+                    cSliceSorted[a + 2] = MoveTables.sliceSortedMove[N_MOVE * fbSliceSorted + mfb] & 0xFFFF;
+                    cTetra[a] = MoveTables.tetraMove[N_MOVE * udTetra + m] & 0xFFFF;
+                    cTetra[a + 1] = MoveTables.tetraMove[N_MOVE * rlTetra + mrl] & 0xFFFF;
+                    cTetra[a + 2] = MoveTables.tetraMove[N_MOVE * fbTetra + mfb] & 0xFFFF;
+                }
+            }
 
-                fs = N_FLIP * fbSliceSorted1 + fbFlip1;
-                fsIdx = SymmetryTables.flipslicesortedClassidx[fs];
-                fsSym = SymmetryTables.flipslicesortedSym[fs] & 0xFF;
+            // Stage 2: phasex24 lookups
+            if (x24) {
+                for (int i = 3 * base, end = 3 * (base + n); i < end; i++) {
+                    cMod3[i] = PruningTables.getFlipslicesortedTwistDepth3(cIdx[i]);
+                }
+            }
 
-                int fbDist1Mod3 = PruningTables.getFlipslicesortedTwistDepth3(
-                    (long) N_TWIST * fsIdx + (SymmetryTables.twistConj[(fbTwist1 << 4) + fsSym] & 0xFFFF));
-                int fbDist1 = PruningTables.dist[3 * fbDist + fbDist1Mod3] & 0xFF;
+            // Stage 3: phasex24 tests; the survivors are listed in cLive
+            int live = 0;
+            for (int c = base; c < base + n; c++) {
+                int a = 3 * c;
+                int udDist1 = 0, rlDist1 = 0, fbDist1 = 0;
+                if (x24) {
+                    udDist1 = PruningTables.dist[3 * udDist + cMod3[a]] & 0xFF;
+                    if (udDist1 >= togo) { pruned[P_UD_X24]++; continue; }
+                    rlDist1 = PruningTables.dist[3 * rlDist + cMod3[a + 1]] & 0xFF;
+                    if (rlDist1 >= togo) { pruned[P_RL_X24]++; continue; }
+                    fbDist1 = PruningTables.dist[3 * fbDist + cMod3[a + 2]] & 0xFF;
+                    if (fbDist1 >= togo) { pruned[P_FB_X24]++; continue; }
+
+                    // 3-axis pruning check
+                    if (udDist1 != 0 && udDist1 == rlDist1 && rlDist1 == fbDist1) {
+                        if (udDist1 + 1 >= togo) { pruned[P_3AX_X24]++; continue; }
+                    }
+                }
+                cDist[a] = udDist1;
+                cDist[a + 1] = rlDist1;
+                cDist[a + 2] = fbDist1;
+                cLive[base + live++] = c;
+            }
 
-                if (fbDist1 >= togo) continue;
+            // Stage 4: ubigPF addresses, then lookups, of the survivors
+            if (big) {
+                for (int j = base; j < base + live; j++) {
+                    int a = 3 * cLive[j];
+                    for (int i = a; i < a + 3; i++) ubigIndex(i);
+                }
+                for (int j = base; j < base + live; j++) {
+                    int a = 3 * cLive[j];
+                    for (int i = a; i < a + 3; i++) cMod3[i] = PruningTables.getUbigMod3(cBigTetra[i], cBigIdx[i]);
+                }
+            }
 
-                // 3-axis pruning check
-                if (udDist1 != 0 && udDist1 == rlDist1 && rlDist1 == fbDist1) {
-                    if (udDist1 + 1 >= togo) continue;
+            // Stage 5: ubigPF tests, then recurse or fork
+            for (int j = base; j < base + live; j++) {
+                int c = cLive[j];
+                int a = 3 * c;
+                int udBig1 = 0, rlBig1 = 0, fbBig1 = 0;
+                if (big) {
+                    udBig1 = PruningTables.dist[3 * udBig + cMod3[a]] & 0xFF;
+                    if (udBig1 >= togo) { pruned[P_UD_BIG]++; continue; }
+                    rlBig1 = PruningTables.dist[3 * rlBig + cMod3[a + 1]] & 0xFF;
+                    if (rlBig1 >= togo) { pruned[P_RL_BIG]++; continue; }
+                    fbBig1 = PruningTables.dist[3 * fbBig + cMod3[a + 2]] & 0xFF;
+                    if (fbBig1 >= togo) { pruned[P_FB_BIG]++; continue; }
+
+                    // 3-axis big pruning check
+                    if (udBig1 != 0 && udBig1 == rlBig1 && rlBig1 == fbBig1) {
+                        if (udBig1 + 1 >= togo) { pruned[P_3AX_BIG]++; continue; }
+                    }
                 }
 
-                // Tetra coordinates
-                int udTetra1 = MoveTables.tetraMove[N_MOVE * udTetra + m] & 0xFFFF;
-                int rlTetra1 = MoveTables.tetraMove[N_MOVE * rlTetra + mrl] & 0xFFFF;
-                int fbTetra1 = MoveTables.tetraMove[N_MOVE * fbTetra + mfb] & 0xFFFF;
-
-                // UD big pruning
-                int sliceUd = udSliceSorted1 / N_PERM_4;
-                int fsUd = sliceUd * N_FLIP + udFlip1;
-                int fsUdCl = SymmetryTables.flipsliceClassidx[fsUd] & 0xFFFF;
-                int fsUdSy = SymmetryTables.flipsliceSym[fsUd] & 0xFF;
-
-                int twistUdC = SymmetryTables.twistConj[(udTwist1 << 4) + fsUdSy] & 0xFFFF;
-                int tetraUdC = SymmetryTables.tetraConj[N_SYM_D4h * udTetra1 + fsUdSy] & 0xFFFF;
-                int idxUd = N_TWIST * fsUdCl + twistUdC;
-
-                int udMod3 = PruningTables.getUbigMod3(tetraUdC, idxUd);
-                int udBig1 = PruningTables.dist[3 * udBig + udMod3] & 0xFF;
-                if (udBig1 >= togo) continue;
-
-                // RL big pruning
-                int sliceRl = rlSliceSorted1 / N_PERM_4;
-                int fsRl = sliceRl * N_FLIP + rlFlip1;
-                int fsRlCl = SymmetryTables.flipsliceClassidx[fsRl] & 0xFFFF;
-                int fsRlSy = SymmetryTables.flipsliceSym[fsRl] & 0xFF;
-
-                int twistRlC = SymmetryTables.twistConj[(rlTwist1 << 4) + fsRlSy] & 0xFFFF;
-                int tetraRlC = SymmetryTables.tetraConj[N_SYM_D4h * rlTetra1 + fsRlSy] & 0xFFFF;
-                int idxRl = N_TWIST * fsRlCl + twistRlC;
-
-                int rlMod3 = PruningTables.getUbigMod3(tetraRlC, idxRl);
-                int rlBig1 = PruningTables.dist[3 * rlBig + rlMod3] & 0xFF;
-                if (rlBig1 >= togo) continue;
-
-                // FB big pruning
-                int sliceFb = fbSliceSorted1 / N_PERM_4;
-                int fsFb = sliceFb * N_FLIP + fbFlip1;
-                int fsFbCl = SymmetryTables.flipsliceClassidx[fsFb] & 0xFFFF;
-                int fsFbSy = SymmetryTables.flipsliceSym[fsFb] & 0xFF;
-
-                int twistFbC = SymmetryTables.twistConj[(fbTwist1 << 4) + fsFbSy] & 0xFFFF;
-                int tetraFbC = SymmetryTables.tetraConj[N_SYM_D4h * fbTetra1 + fsFbSy] & 0xFFFF;
-                int idxFb = N_TWIST * fsFbCl + twistFbC;
-
-                int fbMod3 = PruningTables.getUbigMod3(tetraFbC, idxFb);
-                int fbBig1 = PruningTables.dist[3 * fbBig + fbMod3] & 0xFF;
-                if (fbBig1 >= togo) continue;
-
-                // 3-axis big pruning check
-                if (udBig1 != 0 && udBig1 == rlBig1 && rlBig1 == fbBig1) {
-                    if (udBig1 + 1 >= togo) continue;
+                // Hand the child subtree to another worker if they are running dry
+                if (togo - 1 >= MIN_SPLIT_TOGO && ForkJoinTask.getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS) {
+                    int[] childPath = Arrays.copyOf(moves, depth + 1);
+                    childPath[depth] = cMove[c];
+                    SubtreeTask task = new SubtreeTask(ctx,
+                            cFlip[a], cFlip[a + 1], cFlip[a + 2],
+                            cTwist[a], cTwist[a + 1], cTwist[a + 2],
+                            cSliceSorted[a], cSliceSorted[a + 1], cSliceSorted[a + 2],
+                            cFs[a], cFs[a + 1], cFs[a + 2],
+                            cCorners[c],
+                            cDist[a], cDist[a + 1], cDist[a + 2],
+                            udBig1, rlBig1, fbBig1,
+                            cTetra[a], cTetra[a + 1], cTetra[a + 2],
+                            togo - 1,
+                            childPath);
+                    task.fork();
+                    forked.add(task);
+                    continue;
                 }
 
                 // Recurse
-                path.add(m);
-                int childFrontier = jobs != null ? Math.max(frontierDepthLeft - 1, 0) : 0;
-                search(udFlip1, rlFlip1, fbFlip1,
-                       udTwist1, rlTwist1, fbTwist1,
-                       udSliceSorted1, rlSliceSorted1, fbSliceSorted1,
-                       corners1,
-                       udDist1, rlDist1, fbDist1,
+                moves[depth] = cMove[c];
+                search(cFlip[a], cFlip[a + 1], cFlip[a + 2],
+                       cTwist[a], cTwist[a + 1], cTwist[a + 2],
+                       cSliceSorted[a], cSliceSorted[a + 1], cSliceSorted[a + 2],
+                       cFs[a], cFs[a + 1], cFs[a + 2],
+                       cCorners[c],
+                       cDist[a], cDist[a + 1], cDist[a + 2],
                        udBig1, rlBig1, fbBig1,
-                       udTetra1, rlTetra1, fbTetra1,
+                       cTetra[a], cTetra[a + 1], cTetra[a + 2],
                        togo - 1,
-                       path,
-                       childFrontier,
-                       jobs);
-                if (solFound.get()) return;
-                path.remove(path.size() - 1);
+                       depth + 1);
+                if (ctx.isStopped()) return;
+            }
+        }
+
+        // Move a flipslicesorted sym-coordinate: the move is conjugated into the representative's frame
+        private static int moveFs(int fs, int m) {
+            int sym = fs & 15;
+            int fsm = SymmetryTables.flipslicesortedMove[
+                N_MOVE * (fs >>> 4) + (SymmetryTables.conjMove[N_MOVE * sym + m] & 0xFFFF)];
+            return (fsm & ~15) | SymmetryTables.symMultD4h[((fsm & 15) << 4) + sym];
+        }
+
+        private static long phasex24Index(int fs, int twist) {
+            return (long) N_TWIST * (fs >>> 4) + (SymmetryTables.twistConj[(twist << 4) + (fs & 15)] & 0xFFFF);
+        }
+
+        // ubigPF address (tetra, index) of buffer entry i, from its flip, slice, twist and tetra
+        private void ubigIndex(int i) {
+            int classSym = SymmetryTables.flipsliceClassSym[(cSliceSorted[i] / N_PERM_4) * N_FLIP + cFlip[i]];
+            int sym = SymmetryTables.sym(classSym);
+            cBigTetra[i] = SymmetryTables.tetraConj[N_SYM_D4h * cTetra[i] + sym] & 0xFFFF;
+            cBigIdx[i] = N_TWIST * SymmetryTables.classidx(classSym) + (SymmetryTables.twistConj[(cTwist[i] << 4) + sym] & 0xFFFF);
+        }
+    }
+
+    /**
+     * Mutable state shared by all tasks of a single optimal solve: its result,
+     * stop flags and the counters of the running iteration. One instance per call to solve().
+     * cancelled is set once any task has seen the control ask for a stop, or the bound drop to
+     * the depth of the running iteration, so the others only need to read a flag between polls.
+     */
+    private static class SearchContext {
+        final AtomicBoolean solFound = new AtomicBoolean(false);
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+        final AtomicLong nodeCount = new AtomicLong(0);
+        final AtomicLongArray pruned = new AtomicLongArray(SolveStats.N_PRUNE);
+        final AtomicLong tasks = new AtomicLong(0);
+        final AtomicInteger peakQueued = new AtomicInteger(0);
+        final SolveControl control;
+        final IntSupplier maxLength;
+        final boolean usePhasex24 = PruningTables.hasPhasex24();
+        final boolean useUbig = PruningTables.hasUbig();
+        final int rootMoves;            // first moves to search, see OptimalSolver.rootMoves
+        final boolean reducedRoot;      // whether the cube's symmetries ruled out any of them
+        volatile int depth;     // depth of the running IDA* iteration
+        private List<Integer> solutionMoves = new ArrayList<>();
+
+        SearchContext(SolveControl control, IntSupplier maxLength, int rootMoves) {
+            this.control = control;
+            this.maxLength = maxLength;
+            this.rootMoves = rootMoves;
+            this.reducedRoot = rootMoves != (1 << N_MOVE) - 1;
+        }
+
+        // Reset the per-iteration counters before the IDA* iteration of the given depth
+        void startIteration(int depth) {
+            this.depth = depth;
+            nodeCount.set(0);
+            for (int i = 0; i < SolveStats.N_PRUNE; i++) pruned.set(i, 0);
+            tasks.set(0);
+            peakQueued.set(0);
+        }
+
+        void addPruned(long[] counts) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) pruned.addAndGet(i, counts[i]);
+            }
+        }
+
+        long[] prunedSnapshot() {
+            long[] counts = new long[SolveStats.N_PRUNE];
+            for (int i = 0; i < counts.length; i++) counts[i] = pruned.get(i);
+            return counts;
+        }
+
+        void sampleQueue() {
+            int queued = (int) Math.min(POOL.getQueuedTaskCount(), Integer.MAX_VALUE);
+            peakQueued.accumulateAndGet(queued, Math::max);
+        }
+
+        boolean boundReached() {
+            return maxLength.getAsInt() <= depth;
+        }
+
+        boolean isStopped() {
+            return solFound.get() || cancelled.get();
+        }
+
+        synchronized List<Integer> getSolution() {
+            return new ArrayList<>(solutionMoves);
+        }
+
+        void setSolution(int[] moves, int length) {
+            if (solFound.compareAndSet(false, true)) {
+                List<Integer> sol = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) sol.add(moves[i]);
+                synchronized (this) {
+                    solutionMoves = sol;
+                }
             }
         }
     }
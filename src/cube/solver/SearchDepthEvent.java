@@ -0,0 +1,98 @@
+package cube.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event with the SolveStats of one search depth, committed when the solve finishes.
+ * Enable with e.g. -XX:StartFlightRecording; disabled events cost nothing.
+ */
+@Name("cube.solver.SearchDepth")
+@Label("Search Depth")
+@Category("Cube Solver")
+@Description("Nodes generated and pruned per heuristic at one search depth")
+class SearchDepthEvent extends jdk.jfr.Event {
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long time;
+
+    @Label("Tasks")
+    long tasks;
+
+    @Label("Peak Queued Tasks")
+    int peakQueuedTasks;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Pruned Corner")
+    long prunedCorner;
+
+    @Label("Pruned UD Phasex24")
+    long prunedUdPhasex24;
+
+    @Label("Pruned RL Phasex24")
+    long prunedRlPhasex24;
+
+    @Label("Pruned FB Phasex24")
+    long prunedFbPhasex24;
+
+    @Label("Pruned 3-Axis Phasex24")
+    long prunedThreeAxisPhasex24;
+
+    @Label("Pruned UD Big")
+    long prunedUdBig;
+
+    @Label("Pruned RL Big")
+    long prunedRlBig;
+
+    @Label("Pruned FB Big")
+    long prunedFbBig;
+
+    @Label("Pruned 3-Axis Big")
+    long prunedThreeAxisBig;
+
+    @Label("Pruned Phase 1")
+    long prunedPhase1;
+
+    @Label("Pruned Phase 1 Cornslice")
+    long prunedPhase1Cornslice;
+
+    @Label("Pruned Phase 2")
+    long prunedPhase2;
+
+    void set(SolveStats stats, SolveStats.Depth d) {
+        solver = stats.getSolver();
+        depth = d.getDepth();
+        threads = stats.getThreads();
+        time = d.getTimeMillis();
+        tasks = d.getTasks();
+        peakQueuedTasks = d.getPeakQueuedTasks();
+        nodes = d.getNodes();
+        prunedCorner = d.getPruned(SolveStats.Prune.CORNER);
+        prunedUdPhasex24 = d.getPruned(SolveStats.Prune.UD_PHASEX24);
+        prunedRlPhasex24 = d.getPruned(SolveStats.Prune.RL_PHASEX24);
+        prunedFbPhasex24 = d.getPruned(SolveStats.Prune.FB_PHASEX24);
+        prunedThreeAxisPhasex24 = d.getPruned(SolveStats.Prune.THREE_AXIS_PHASEX24);
+        prunedUdBig = d.getPruned(SolveStats.Prune.UD_BIG);
+        prunedRlBig = d.getPruned(SolveStats.Prune.RL_BIG);
+        prunedFbBig = d.getPruned(SolveStats.Prune.FB_BIG);
+        prunedThreeAxisBig = d.getPruned(SolveStats.Prune.THREE_AXIS_BIG);
+        prunedPhase1 = d.getPruned(SolveStats.Prune.PHASE1);
+        prunedPhase1Cornslice = d.getPruned(SolveStats.Prune.PHASE1_CORNSLICE);
+        prunedPhase2 = d.getPruned(SolveStats.Prune.PHASE2);
+    }
+}
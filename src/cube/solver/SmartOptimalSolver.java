@@ -0,0 +1,134 @@
+package cube.solver;
+
+import cube.model.face.FaceCube;
+import cube.model.cubie.CubieCube;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Smart Optimal Solver - finds the shortest solution by racing the two solvers.
+ * The two-phase search keeps finding shorter solutions (an upper bound), while the optimal IDA*
+ * search proves that no shorter one exists one depth at a time (a lower bound). Every two-phase
+ * improvement immediately tightens the IDA* bound; the solve ends as soon as the bounds meet,
+ * which usually saves the deepest and most expensive IDA* iterations.
+ */
+public class SmartOptimalSolver extends AbstractSolver {
+
+    // After this many seconds the two-phase search stops trying to improve and leaves the rest to IDA*
+    private static final double TWO_PHASE_TIMEOUT = 10.0;
+
+    private final TwoPhaseSolver twoPhase = new TwoPhaseSolver();
+    private final OptimalSolver optimal = new OptimalSolver();
+
+    // ========== Solver interface implementation ==========
+
+    @Override
+    public String getName() {
+        return "Smart Optimal Solver";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Finds shortest solution, using fast solutions to cut the optimal search short";
+    }
+
+    @Override
+    protected int getDefaultMaxLength() {
+        return 100;
+    }
+
+    @Override
+    protected double getDefaultTimeout() {
+        return 600.0;
+    }
+
+    @Override
+    protected String getSolutionSuffix() {
+        return "f*";
+    }
+
+    // Needs the tables of both solvers
+    @Override
+    public void loadTables() {
+        twoPhase.loadTables();
+        optimal.loadTables();
+    }
+
+    @Override
+    public SolveResult solve(String cubeString, int maxLength, double timeout, SolveControl control) {
+        return solve(cubeString, maxLength, timeout, control, null);
+    }
+
+    /**
+     * Solve for an optimal solution shorter than maxLength, reporting every improved (not yet
+     * proven optimal) two-phase solution to the listener. The timeout is a hard limit; when it
+     * passes, the best solution found so far is returned without the optimality mark.
+     * @param listener Receives each improvement, may be null
+     */
+    public SolveResult solve(String cubeString, int maxLength, double timeout, SolveControl control,
+                             SolutionListener listener) {
+        loadTables();
+        FaceCube.Result validation = validateCube(cubeString);
+        if (!validation.isSuccess()) {
+            return new SolveResult(false, validation.getMessage());
+        }
+        CubieCube cc = parseFaceCube(cubeString).toCubieCube();
+
+        SolveControl limit = control.withTimeout(timeout);
+        SolveControl fastControl = limit.withTimeout(TWO_PHASE_TIMEOUT);
+
+        // Length of the best solution known so far; IDA* only looks for shorter ones
+        AtomicInteger bound = new AtomicInteger(maxLength);
+        AtomicReference<List<Integer>> best = new AtomicReference<>();
+
+        SolutionListener tighten = (solution, elapsedMillis) -> {
+            int len = solution.getMoveCount();
+            if (len < bound.get()) {
+                best.set(solution.getMoves());
+                bound.accumulateAndGet(len, Math::min);
+            }
+            if (listener != null) listener.onImprovedSolution(solution, elapsedMillis);
+        };
+        // Target length 0: keep improving until cancelled or the two-phase timeout
+        CompletableFuture<SolveResult> upper = CompletableFuture.supplyAsync(
+            () -> twoPhase.solve(cubeString, 0, TWO_PHASE_TIMEOUT, fastControl, tighten), ASYNC);
+
+        SolveResult lower;
+        try {
+            lower = optimal.solveBounded(cc, bound::get, timeout, limit);
+        } finally {
+            // Bounds met, IDA* found the answer itself, or it failed: the two-phase search has nothing left to add
+            fastControl.cancel();
+        }
+        SolveResult fast = null;
+        try {
+            fast = upper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Two-phase search failed", e.getCause());
+        }
+        long nodes = lower.getNodeCount() + (fast != null ? fast.getNodeCount() : 0);
+
+        // The statistics are those of the IDA* search; the two-phase ones go to its own metrics
+        SolveStats stats = lower.getStats();
+
+        if (lower.isSuccess()) {
+            return new SolveResult(true, lower.getMessage(), lower.getMoves(), nodes, stats);
+        }
+        List<Integer> moves = best.get();
+        if (limit.shouldStop()) {
+            if (moves == null) return stoppedResult(limit, nodes, stats);
+            return new SolveResult(true, renderSolution(moves, "f"), moves, nodes, stats);
+        }
+        if (moves != null && moves.size() == bound.get()) {
+            // IDA* proved there is nothing shorter than the two-phase solution
+            return new SolveResult(true, renderSolution(moves), moves, nodes, stats);
+        }
+        return new SolveResult(false, lower.getMessage(), nodes, stats);
+    }
+}
@@ -0,0 +1,16 @@
+package cube.solver;
+
+/**
+ * Receives each improved solution while a search is still running.
+ * Calls come from search threads, one at a time and in order of decreasing length,
+ * so implementations should return quickly and hand off any slow work.
+ */
+@FunctionalInterface
+public interface SolutionListener {
+
+    /**
+     * @param solution The new shortest solution found so far
+     * @param elapsedMillis Time since the solve started
+     */
+    void onImprovedSolution(SolveResult solution, long elapsedMillis);
+}
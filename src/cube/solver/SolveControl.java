@@ -0,0 +1,59 @@
+package cube.solver;
+
+/**
+ * Cooperative stop signal for a running solve: a cancellation flag plus an optional hard
+ * wall-clock deadline. The search loops of both solvers poll it regularly and unwind as soon
+ * as it says stop, releasing their worker threads.
+ * Thread-safe; one instance is normally used for a single solve.
+ */
+public final class SolveControl {
+
+    private final SolveControl parent;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private volatile boolean cancelled = false;
+
+    /** A control without a deadline, stopped only by cancel(). */
+    public SolveControl() {
+        this(null, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * A control that also expires deadlineSeconds from now.
+     * @param deadlineSeconds Hard time limit in seconds, or infinity for none
+     */
+    public SolveControl(double deadlineSeconds) {
+        this(null, deadlineSeconds);
+    }
+
+    private SolveControl(SolveControl parent, double deadlineSeconds) {
+        this.parent = parent;
+        this.hasDeadline = deadlineSeconds < Double.POSITIVE_INFINITY;
+        this.deadlineNanos = hasDeadline ? System.nanoTime() + (long) (deadlineSeconds * 1e9) : 0;
+    }
+
+    /**
+     * A child control that stops when this one does, or after timeoutSeconds, whichever comes first.
+     * Cancelling the child does not cancel this control.
+     */
+    public SolveControl withTimeout(double timeoutSeconds) {
+        return new SolveControl(this, timeoutSeconds);
+    }
+
+    /** Ask the solve to stop as soon as possible. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    public boolean isExpired() {
+        return (hasDeadline && System.nanoTime() - deadlineNanos >= 0) || (parent != null && parent.isExpired());
+    }
+
+    public boolean shouldStop() {
+        return isCancelled() || isExpired();
+    }
+}
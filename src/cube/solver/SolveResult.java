@@ -13,12 +13,29 @@ public class SolveResult {
     private final String message;
     private final List<Integer> moves;
     private final int moveCount;
+    private final long nodeCount;
+    private final SolveStats stats;
 
     public SolveResult(boolean success, String message) {
         this.success = success;
         this.message = message;
         this.moves = new ArrayList<>();
         this.moveCount = 0;
+        this.nodeCount = 0;
+        this.stats = null;
+    }
+
+    public SolveResult(boolean success, String message, long nodeCount) {
+        this(success, message, nodeCount, null);
+    }
+
+    public SolveResult(boolean success, String message, long nodeCount, SolveStats stats) {
+        this.success = success;
+        this.message = message;
+        this.moves = new ArrayList<>();
+        this.moveCount = 0;
+        this.nodeCount = nodeCount;
+        this.stats = stats;
     }
 
     public SolveResult(boolean success, String message, List<Integer> moves) {
@@ -26,6 +43,21 @@ public class SolveResult {
         this.message = message;
         this.moves = new ArrayList<>(moves);
         this.moveCount = moves.size();
+        this.nodeCount = 0;
+        this.stats = null;
+    }
+
+    public SolveResult(boolean success, String message, List<Integer> moves, long nodeCount) {
+        this(success, message, moves, nodeCount, null);
+    }
+
+    public SolveResult(boolean success, String message, List<Integer> moves, long nodeCount, SolveStats stats) {
+        this.success = success;
+        this.message = message;
+        this.moves = new ArrayList<>(moves);
+        this.moveCount = moves.size();
+        this.nodeCount = nodeCount;
+        this.stats = stats;
     }
 
     public boolean isSuccess() {
@@ -43,5 +75,20 @@ public class SolveResult {
     public int getMoveCount() {
         return moveCount;
     }
-}
 
+    /**
+     * Number of search nodes generated while solving.
+     * @return Node count, 0 if the solve failed before searching
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Per-depth search statistics of the solve.
+     * @return Statistics, null if the solve failed before searching
+     */
+    public SolveStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,214 @@
+package cube.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Search telemetry of a single solve: per search depth, how many nodes were generated, how many
+ * of them each pruning heuristic cut off, and how long it took, plus the threads used.
+ * For the optimal solver a depth is one IDA* iteration; for the two-phase solver it is one
+ * phase 1 depth, summed over all orientations that were searched at that depth.
+ * Immutable; attached to every SolveResult and also published through JMX and JFR (see SolverMetrics).
+ */
+public final class SolveStats {
+
+    /**
+     * The pruning tests of both solvers. A node is counted against the first test that rejects it,
+     * in the order the solver applies them.
+     */
+    public enum Prune {
+        // Optimal solver
+        CORNER,                 // cornerDepth
+        UD_PHASEX24,            // flipslicesortedTwistDepth3, UD axis
+        RL_PHASEX24,            // flipslicesortedTwistDepth3, RL axis
+        FB_PHASEX24,            // flipslicesortedTwistDepth3, FB axis
+        THREE_AXIS_PHASEX24,    // all three phasex24 distances equal
+        UD_BIG,                 // ubigPF, UD axis
+        RL_BIG,                 // ubigPF, RL axis
+        FB_BIG,                 // ubigPF, FB axis
+        THREE_AXIS_BIG,         // all three ubigPF distances equal
+        // Two-phase solver
+        PHASE1,                 // flipsliceTwistDepth3
+        PHASE1_CORNSLICE,       // cornsliceDepth at the end of phase 1
+        PHASE2                  // max of cornersUdEdgesDepth3 and cornsliceDepth
+    }
+
+    static final int N_PRUNE = Prune.values().length;
+
+    /** Statistics of one search depth. */
+    public static final class Depth {
+        private final int depth;
+        private final long nodes;
+        private final long[] pruned;
+        private final long timeMillis;
+        private final long tasks;
+        private final int peakQueuedTasks;
+
+        Depth(int depth, long nodes, long[] pruned, long timeMillis, long tasks, int peakQueuedTasks) {
+            this.depth = depth;
+            this.nodes = nodes;
+            this.pruned = pruned;
+            this.timeMillis = timeMillis;
+            this.tasks = tasks;
+            this.peakQueuedTasks = peakQueuedTasks;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /** Nodes generated (moves tried) at this depth. */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /** Nodes cut off by the given heuristic at this depth. */
+        public long getPruned(Prune p) {
+            return pruned[p.ordinal()];
+        }
+
+        /**
+         * Time spent at this depth: wall-clock time of the IDA* iteration for the optimal solver,
+         * the sum over all orientations (so possibly more than wall-clock) for the two-phase solver.
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        /** Work items that searched this depth: root plus forked subtrees, or orientations. */
+        public long getTasks() {
+            return tasks;
+        }
+
+        /** Largest number of tasks seen waiting in the worker pool's queue during this depth. */
+        public int getPeakQueuedTasks() {
+            return peakQueuedTasks;
+        }
+    }
+
+    private final String solver;
+    private final int threads;
+    private final List<Depth> depths;
+
+    SolveStats(String solver, int threads, List<Depth> depths) {
+        this.solver = solver;
+        this.threads = threads;
+        this.depths = Collections.unmodifiableList(new ArrayList<>(depths));
+    }
+
+    /** Statistics of a solve that never searched, e.g. an invalid cube. */
+    static SolveStats empty(String solver) {
+        return new SolveStats(solver, 0, Collections.emptyList());
+    }
+
+    /** Name of the solver that produced these statistics. */
+    public String getSolver() {
+        return solver;
+    }
+
+    /** Number of threads that searched in parallel. */
+    public int getThreads() {
+        return threads;
+    }
+
+    /** Per-depth statistics in increasing depth order. */
+    public List<Depth> getDepths() {
+        return depths;
+    }
+
+    public long getTotalNodes() {
+        long n = 0;
+        for (Depth d : depths) n += d.nodes;
+        return n;
+    }
+
+    /** Nodes cut off by the given heuristic over all depths. */
+    public long getPruned(Prune p) {
+        long n = 0;
+        for (Depth d : depths) n += d.pruned[p.ordinal()];
+        return n;
+    }
+
+    public long getTotalTimeMillis() {
+        long t = 0;
+        for (Depth d : depths) t += d.timeMillis;
+        return t;
+    }
+
+    /**
+     * Human-readable table: one line per depth with the nodes and the share of them each heuristic pruned.
+     * Only heuristics that pruned anything get a column.
+     */
+    @Override
+    public String toString() {
+        List<Prune> used = new ArrayList<>();
+        for (Prune p : Prune.values()) {
+            if (getPruned(p) > 0) used.add(p);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(solver).append(", ").append(threads).append(" threads\n");
+        sb.append(String.format("%5s %14s %9s %6s", "depth", "nodes", "ms", "tasks"));
+        for (Prune p : used) sb.append(String.format(" %10s", abbreviate(p)));
+        sb.append('\n');
+        for (Depth d : depths) {
+            sb.append(String.format("%5d %14d %9d %6d", d.depth, d.nodes, d.timeMillis, d.tasks));
+            for (Prune p : used) {
+                sb.append(String.format(" %9.2f%%", d.nodes == 0 ? 0.0 : 100.0 * d.pruned[p.ordinal()] / d.nodes));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String abbreviate(Prune p) {
+        String s = p.name().replace("THREE_AXIS", "3AX").replace("PHASEX24", "X24").replace("CORNSLICE", "CS");
+        return s.length() > 10 ? s.substring(0, 10) : s;
+    }
+
+    /**
+     * Thread-safe accumulator the solvers feed while searching. Contributions for the same depth
+     * are summed (times and task counts too), queue peaks are combined with max.
+     */
+    static final class Builder {
+        private final String solver;
+        private final Map<Integer, long[]> byDepth = new TreeMap<>();
+        private int threads;
+
+        // Layout of the per-depth rows: the prune counters, then these
+        private static final int NODES = N_PRUNE;
+        private static final int TIME = N_PRUNE + 1;
+        private static final int TASKS = N_PRUNE + 2;
+        private static final int PEAK_QUEUE = N_PRUNE + 3;
+
+        Builder(String solver) {
+            this.solver = solver;
+        }
+
+        synchronized void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        synchronized void add(int depth, long nodes, long[] pruned, long timeMillis, long tasks, int queuedTasks) {
+            long[] row = byDepth.computeIfAbsent(depth, k -> new long[N_PRUNE + 4]);
+            for (int i = 0; i < N_PRUNE; i++) row[i] += pruned[i];
+            row[NODES] += nodes;
+            row[TIME] += timeMillis;
+            row[TASKS] += tasks;
+            row[PEAK_QUEUE] = Math.max(row[PEAK_QUEUE], queuedTasks);
+        }
+
+        synchronized SolveStats build() {
+            List<Depth> depths = new ArrayList<>(byDepth.size());
+            for (Map.Entry<Integer, long[]> e : byDepth.entrySet()) {
+                long[] row = e.getValue();
+                depths.add(new Depth(e.getKey(), row[NODES], Arrays.copyOf(row, N_PRUNE),
+                                     row[TIME], row[TASKS], (int) row[PEAK_QUEUE]));
+            }
+            return new SolveStats(solver, threads, depths);
+        }
+    }
+}
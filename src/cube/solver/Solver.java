@@ -1,5 +1,7 @@
 package cube.solver;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface defining the contract for all Rubik's Cube solvers.
  * Demonstrates the use of interfaces for abstraction.
@@ -21,6 +23,34 @@ public interface Solver {
      * @return SolveResult containing success status and solution
      */
     SolveResult solve(String cubeString, int maxLength, double timeout);
+
+    /**
+     * Solve the cube, stopping early when the control is cancelled or its deadline passes.
+     * @param cubeString The 54-character facelet string
+     * @param maxLength Maximum solution length to search for
+     * @param timeout Timeout in seconds
+     * @param control Cancellation flag and hard deadline polled by the search
+     * @return SolveResult containing success status and solution
+     */
+    SolveResult solve(String cubeString, int maxLength, double timeout, SolveControl control);
+
+    /**
+     * Solve the cube asynchronously.
+     * Cancelling the returned future stops the search and frees its threads.
+     * @param cubeString The 54-character facelet string
+     * @param maxLength Maximum solution length to search for
+     * @param timeout Timeout in seconds
+     * @param deadline Hard wall-clock limit in seconds after which the search is abandoned
+     * @return Future completed with the SolveResult
+     */
+    CompletableFuture<SolveResult> solveAsync(String cubeString, int maxLength, double timeout, double deadline);
+
+    /**
+     * Load (or generate) the lookup tables this solver needs, and only those.
+     * Every solve calls it first, so it is optional; call it up front to keep
+     * the loading time out of the first solve. Returns at once when already loaded.
+     */
+    void loadTables();
     
     /**
      * Get the name of this solver.
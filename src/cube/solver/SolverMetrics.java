@@ -0,0 +1,116 @@
+package cube.solver;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the SolveStats of every solve: accumulated per solver in a platform MXBean, and
+ * per depth as a JFR event (cube.solver.SearchDepth) whenever a flight recording is running.
+ * Registration problems only disable the JMX side; solving is never affected.
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+
+    private static final Map<String, SolverMetrics> BY_SOLVER = new ConcurrentHashMap<>();
+
+    private final AtomicLong solves = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong timeMillis = new AtomicLong();
+    private final AtomicLongArray pruned = new AtomicLongArray(SolveStats.N_PRUNE);
+    // Formatted only when read through JMX, so solves never pay for SolveStats.toString()
+    private volatile SolveStats lastSolve;
+
+    private SolverMetrics() {
+    }
+
+    /**
+     * Metrics of the given solver class, registered with the platform MBean server on first use.
+     */
+    public static SolverMetrics of(Class<? extends Solver> solver) {
+        return BY_SOLVER.computeIfAbsent(solver.getSimpleName(), name -> {
+            SolverMetrics m = new SolverMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName on = new ObjectName("cube.solver:type=SolverMetrics,name=" + name);
+                if (!server.isRegistered(on)) server.registerMBean(m, on);
+            } catch (Exception | LinkageError e) {
+                System.err.println("Could not register solver metrics MBean for " + name + ": " + e);
+            }
+            return m;
+        });
+    }
+
+    /** Add a finished solve to the totals and emit its JFR events. */
+    void record(SolveStats stats) {
+        solves.incrementAndGet();
+        nodes.addAndGet(stats.getTotalNodes());
+        timeMillis.addAndGet(stats.getTotalTimeMillis());
+        for (SolveStats.Prune p : SolveStats.Prune.values()) {
+            long n = stats.getPruned(p);
+            if (n != 0) pruned.addAndGet(p.ordinal(), n);
+        }
+        lastSolve = stats;
+
+        for (SolveStats.Depth d : stats.getDepths()) {
+            SearchDepthEvent e = new SearchDepthEvent();
+            if (!e.shouldCommit()) break;
+            e.set(stats, d);
+            e.commit();
+        }
+    }
+
+    @Override
+    public long getSolves() {
+        return solves.get();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    @Override
+    public long getTimeMillis() {
+        return timeMillis.get();
+    }
+
+    @Override
+    public Map<String, Long> getPruned() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        for (SolveStats.Prune p : SolveStats.Prune.values()) {
+            long n = pruned.get(p.ordinal());
+            if (n != 0) m.put(p.name(), n);
+        }
+        return m;
+    }
+
+    @Override
+    public Map<String, Double> getPrunedPercent() {
+        long total = nodes.get();
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : getPruned().entrySet()) {
+            m.put(e.getKey(), total == 0 ? 0.0 : 100.0 * e.getValue() / total);
+        }
+        return m;
+    }
+
+    @Override
+    public String getLastSolve() {
+        SolveStats last = lastSolve;
+        return last == null ? "" : last.toString();
+    }
+
+    @Override
+    public void reset() {
+        solves.set(0);
+        nodes.set(0);
+        timeMillis.set(0);
+        for (int i = 0; i < pruned.length(); i++) pruned.set(i, 0);
+        lastSolve = null;
+    }
+}
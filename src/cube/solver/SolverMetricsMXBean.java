@@ -0,0 +1,30 @@
+package cube.solver;
+
+import java.util.Map;
+
+/**
+ * JMX view of the cumulative search statistics of one solver in this JVM,
+ * registered as cube.solver:type=SolverMetrics,name=&lt;solver class&gt;.
+ */
+public interface SolverMetricsMXBean {
+
+    /** Number of solves recorded since start or the last reset. */
+    long getSolves();
+
+    /** Nodes generated by all recorded solves. */
+    long getNodes();
+
+    /** Search time of all recorded solves in milliseconds (see SolveStats.Depth.getTimeMillis). */
+    long getTimeMillis();
+
+    /** Nodes cut off per heuristic, keyed by SolveStats.Prune name; heuristics this solver does not use are left out. */
+    Map<String, Long> getPruned();
+
+    /** Share of the generated nodes each heuristic cut off, in percent. */
+    Map<String, Double> getPrunedPercent();
+
+    /** Per-depth table of the most recent solve. */
+    String getLastSolve();
+
+    void reset();
+}
@@ -3,16 +3,26 @@ package cube.solver;
 import cube.model.face.FaceCube;
 import cube.model.face.Move;
 import cube.model.cubie.CubieCube;
+import cube.model.cubie.PackedCube;
 import cube.model.coord.TwoPhaseCoordCube;
 import cube.moves.MoveTables;
 import cube.symmetry.SymmetryTables;
 import cube.pruning.PruningTables;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static cube.model.cubie.Defs.*;
 
@@ -23,6 +33,35 @@ import static cube.model.cubie.Defs.*;
  */
 public class TwoPhaseSolver extends AbstractSolver {
 
+    // Shared by all solver instances, so concurrent callers share the cores instead of each starting
+    // up to six threads per solve. Daemon threads, so an idle pool never keeps the JVM alive.
+    private static final AtomicInteger WORKER_ID = new AtomicInteger(0);
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(
+        POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "two-phase-worker-" + WORKER_ID.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+    // The search polls its SolveControl once every STOP_POLL_MASK + 1 nodes
+    private static final int STOP_POLL_MASK = 4095;
+
+    // Indices of the prune counters, as constants for the inner loops
+    private static final int P_PHASE1 = SolveStats.Prune.PHASE1.ordinal();
+    private static final int P_PHASE1_CORNSLICE = SolveStats.Prune.PHASE1_CORNSLICE.ordinal();
+    private static final int P_PHASE2 = SolveStats.Prune.PHASE2.ordinal();
+
+    // One search worker per thread; its move buffers are reused by every search that thread runs
+    private static final ThreadLocal<SearchWorker> WORKERS = ThreadLocal.withInitial(SearchWorker::new);
+
+    // This thread's worker, or a fresh one if it is busy: a SolutionListener runs on a search thread and
+    // may start another solve there, which must not reuse the stacks of the search that called it
+    private static SearchWorker worker() {
+        SearchWorker w = WORKERS.get();
+        return w.S == null ? w : new SearchWorker();
+    }
+
     // ========== Solver interface implementation ==========
 
     @Override
@@ -47,8 +86,31 @@ public class TwoPhaseSolver extends AbstractSolver {
 
     // Note: getSolutionSuffix() is NOT overridden, so it uses parent's "f"
 
+    /**
+     * Phase 1 flipslice-twist, phase 2 corners-udedges and cornslice pruning tables,
+     * plus the move and symmetry tables behind them. A few hundred MB at most.
+     */
+    @Override
+    public void loadTables() {
+        MoveTables.initTwoPhase();
+        SymmetryTables.initTwoPhase();
+        PruningTables.initTwoPhase();
+    }
+
     @Override
-    public SolveResult solve(String cubeString, int maxLength, double timeout) {
+    public SolveResult solve(String cubeString, int maxLength, double timeout, SolveControl control) {
+        return solve(cubeString, maxLength, timeout, control, null);
+    }
+
+    /**
+     * Solve the cube, reporting every shorter solution to the listener as soon as it is found.
+     * The search keeps going for a solution of at most maxLength moves (or until the timeout),
+     * so the first answer can arrive long before the final one.
+     * @param listener Receives each improvement, may be null
+     */
+    public SolveResult solve(String cubeString, int maxLength, double timeout, SolveControl control,
+                             SolutionListener listener) {
+        loadTables();
         FaceCube.Result validation = validateCube(cubeString);
         if (!validation.isSuccess()) {
             return new SolveResult(false, validation.getMessage());
@@ -57,8 +119,18 @@ public class TwoPhaseSolver extends AbstractSolver {
         FaceCube fc = parseFaceCube(cubeString);
         CubieCube cb = fc.toCubieCube();
 
-        SharedState S = new SharedState();
         long startTime = System.currentTimeMillis();
+        SharedState S = new SharedState(control, getName());
+        if (listener != null) {
+            S.onImproved = moves -> {
+                try {
+                    listener.onImprovedSolution(new SolveResult(true, renderSolution(moves), moves, 0),
+                                                System.currentTimeMillis() - startTime);
+                } catch (RuntimeException e) {
+                    System.err.println("Solution listener failed: " + e);
+                }
+            };
+        }
         List<Integer> syms = cb.symmetries();
 
         List<Integer> tr = new ArrayList<>();
@@ -80,27 +152,52 @@ public class TwoPhaseSolver extends AbstractSolver {
             tr = tmp;
         }
 
-        List<Thread> workers = new ArrayList<>();
-        for (int i : tr) {
-            int rot = i % 3, inv = i / 3;
-            SolverThread solver = new SolverThread(cb, rot, inv, maxLength, timeout, startTime, S);
-            Thread t = new Thread(solver);
-            workers.add(t);
-            t.start();
+        // The first orientation is searched on the calling thread, the others on the shared pool
+        S.stats.setThreads(Math.min(tr.size(), POOL_SIZE + 1));
+        List<Future<?>> pending = new ArrayList<>();
+        for (int k = 1; k < tr.size(); k++) {
+            int i = tr.get(k);
+            pending.add(POOL.submit(() -> worker().run(cb, i % 3, i / 3, maxLength, timeout, startTime, S)));
         }
-
-        for (Thread t : workers) {
-            try { t.join(); } catch (InterruptedException e) { }
+        worker().run(cb, tr.get(0) % 3, tr.get(0) / 3, maxLength, timeout, startTime, S);
+
+        for (Future<?> f : pending) {
+            try {
+                // An orientation no pool thread has started yet is searched here. A solve started from a
+                // pool thread (e.g. by a SolutionListener) then cannot wait for work queued behind itself
+                if (!Thread.currentThread().isInterrupted() && POOL.remove((Runnable) f)) ((Runnable) f).run();
+                f.get();
+            } catch (InterruptedException e) {
+                S.terminated.set(true);
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                S.terminated.set(true);
+                throw new IllegalStateException("Two-phase search failed", e.getCause());
+            }
         }
 
+        SolveStats stats = S.stats.build();
+        SolverMetrics.of(getClass()).record(stats);
+
         if (S.solutions.isEmpty()) {
-            return new SolveResult(false, "No solution found");
+            if (control.shouldStop()) return stoppedResult(control, S.nodeCount.get(), stats);
+            return new SolveResult(false, "No solution found", S.nodeCount.get(), stats);
         }
 
         List<Integer> solution = S.solutions.get(S.solutions.size() - 1);
         String solutionStr = renderSolution(solution);
 
-        return new SolveResult(true, solutionStr, solution);
+        return new SolveResult(true, solutionStr, solution, S.nodeCount.get(), stats);
+    }
+
+    /**
+     * Asynchronous solve that streams improvements to the listener; see solveAsync and
+     * solve(String, int, double, SolveControl, SolutionListener).
+     */
+    public CompletableFuture<SolveResult> solveAsync(String cubeString, int maxLength, double timeout, double deadline,
+                                                     SolutionListener listener) {
+        return runAsync(deadline, control -> solve(cubeString, maxLength, timeout, control, listener));
     }
 
     // ========== Static convenience methods for backward compatibility ==========
@@ -119,32 +216,42 @@ public class TwoPhaseSolver extends AbstractSolver {
         List<List<Integer>> solutions = Collections.synchronizedList(new ArrayList<>());
         AtomicInteger shortestLen = new AtomicInteger(999);
         AtomicBoolean terminated = new AtomicBoolean(false);
+        AtomicLong nodeCount = new AtomicLong(0);
+        final SolveControl control;
+        final SolveStats.Builder stats;
+        Consumer<List<Integer>> onImproved = null;  // called under the SharedState lock
+
+        SharedState(SolveControl control, String solverName) {
+            this.control = control;
+            this.stats = new SolveStats.Builder(solverName);
+        }
     }
 
-    private class SolverThread implements Runnable {
+    private static class SearchWorker {
         CubieCube cbCube;
         TwoPhaseCoordCube coCube;
         int rot;
         int inv;
         int retLength;
         double timeout;
-        int cornerSave = 0;
-        List<Integer> sofarPhase1 = new ArrayList<>();
-        List<Integer> sofarPhase2 = new ArrayList<>();
+        // Moves of the current phase 1 and phase 2 paths; n1 and n2 are their lengths
+        final int[] sofarPhase1 = new int[20];
+        final int[] sofarPhase2 = new int[12];
+        int n1 = 0;
+        int n2 = 0;
+        // Phase 2 coordinates after the first i phase 1 moves, known for i <= cornersValid (edgesValid)
+        final int[] cornersAt = new int[21];
+        final int[] uEdgesAt = new int[21];
+        final int[] dEdgesAt = new int[21];
+        int cornersValid = 0;
+        int edgesValid = 0;
         boolean phase2Done = false;
+        long nodes = 0;
+        // Prune counts of the current phase 1 depth
+        final long[] pruned = new long[SolveStats.N_PRUNE];
         long startTime;
         SharedState S;
 
-        SolverThread(CubieCube cb, int rot, int inv, int retLen, double timeout, long startTime, SharedState S) {
-            this.cbCube = new CubieCube(cb.getCpArray(), cb.getCoArray(), cb.getEpArray(), cb.getEoArray());
-            this.rot = rot;
-            this.inv = inv;
-            this.retLength = retLen;
-            this.timeout = timeout;
-            this.startTime = startTime;
-            this.S = S;
-        }
-
         static int invertMove(int m) {
             int f = m / 3, t = m % 3;
             return 3 * f + (2 - t);
@@ -160,8 +267,9 @@ public class TwoPhaseSolver extends AbstractSolver {
         }
 
         void storeSolutionIfBetter() {
-            List<Integer> curSol = new ArrayList<>(sofarPhase1);
-            curSol.addAll(sofarPhase2);
+            List<Integer> curSol = new ArrayList<>(n1 + n2);
+            for (int i = 0; i < n1; i++) curSol.add(sofarPhase1[i]);
+            for (int i = 0; i < n2; i++) curSol.add(sofarPhase2[i]);
             if (inv == 1) {
                 Collections.reverse(curSol);
                 for (int i = 0; i < curSol.size(); i++) {
@@ -176,6 +284,7 @@ public class TwoPhaseSolver extends AbstractSolver {
                 if (curSol.size() < S.shortestLen.get()) {
                     S.solutions.add(new ArrayList<>(curSol));
                     S.shortestLen.set(curSol.size());
+                    if (S.onImproved != null) S.onImproved.accept(curSol);
                     if (S.shortestLen.get() <= retLength) {
                         S.terminated.set(true);
                     }
@@ -191,26 +300,28 @@ public class TwoPhaseSolver extends AbstractSolver {
             } else {
                 for (int m = 0; m < N_MOVE; m++) {
                     if (isPhase2ForbiddenQuarter(m)) continue;
-                    if (!sofarPhase2.isEmpty()) {
-                        if (badSuccessive(sofarPhase2.get(sofarPhase2.size() - 1), m)) continue;
-                    } else if (!sofarPhase1.isEmpty()) {
-                        if (badSuccessive(sofarPhase1.get(sofarPhase1.size() - 1), m)) continue;
+                    if (n2 > 0) {
+                        if (badSuccessive(sofarPhase2[n2 - 1], m)) continue;
+                    } else if (n1 > 0) {
+                        if (badSuccessive(sofarPhase1[n1 - 1], m)) continue;
                     }
 
+                    if ((++nodes & STOP_POLL_MASK) == 0 && stopRequested()) S.terminated.set(true);
                     int cornersNew = MoveTables.cornersMove[18 * corners + m] & 0xFFFF;
                     int udEdgesNew = MoveTables.udEdgesMove[18 * udEdges + m] & 0xFFFF;
                     int sliceSortedNew = MoveTables.sliceSortedMove[18 * sliceSorted + m] & 0xFFFF;
-                    int classidx = SymmetryTables.cornerClassidx[cornersNew] & 0xFFFF;
-                    int sym = SymmetryTables.cornerSym[cornersNew] & 0xFF;
+                    int classSym = SymmetryTables.cornerClassSym[cornersNew];
+                    int classidx = SymmetryTables.classidx(classSym);
+                    int sym = SymmetryTables.sym(classSym);
                     int distNewMod3 = PruningTables.getCornersUdEdgesDepth3(
                         N_UD_EDGES * classidx + (SymmetryTables.udEdgesConj[(udEdgesNew << 4) + sym] & 0xFFFF));
                     int distNew = PruningTables.dist[3 * disti + distNewMod3] & 0xFF;
                     int cornslice = PruningTables.cornsliceDepth[24 * cornersNew + sliceSortedNew] & 0xFF;
-                    if (Math.max(distNew, cornslice) >= togoPhase2) continue;
+                    if (Math.max(distNew, cornslice) >= togoPhase2) { pruned[P_PHASE2]++; continue; }
 
-                    sofarPhase2.add(m);
+                    sofarPhase2[n2++] = m;
                     searchPhase2(cornersNew, udEdgesNew, sliceSortedNew, distNew, togoPhase2 - 1);
-                    sofarPhase2.remove(sofarPhase2.size() - 1);
+                    n2--;
                     if (S.terminated.get() || phase2Done) return;
                 }
             }
@@ -225,33 +336,33 @@ public class TwoPhaseSolver extends AbstractSolver {
                     return;
                 }
 
-                int m = sofarPhase1.isEmpty() ? Move.U1.ordinal() : sofarPhase1.get(sofarPhase1.size() - 1);
-
-                int corners;
-                if (m == Move.R3.ordinal() || m == Move.F3.ordinal() || m == Move.L3.ordinal() || m == Move.B3.ordinal()) {
-                    corners = MoveTables.cornersMove[18 * cornerSave + (m - 1)] & 0xFFFF;
-                } else {
-                    corners = coCube.getCorners();
-                    for (int mm : sofarPhase1) {
-                        corners = MoveTables.cornersMove[18 * corners + mm] & 0xFFFF;
-                    }
-                    cornerSave = corners;
+                // Extend the cached coordinates from the deepest depth still valid for the current path.
+                // Consecutive leaves share all but their last moves, so this is O(1) amortized per leaf.
+                while (cornersValid < n1) {
+                    cornersAt[cornersValid + 1] = MoveTables.cornersMove[18 * cornersAt[cornersValid] + sofarPhase1[cornersValid]] & 0xFFFF;
+                    cornersValid++;
                 }
+                int corners = cornersAt[n1];
 
-                int togo2Limit = Math.min(S.shortestLen.get() - sofarPhase1.size(), 11);
-                if ((PruningTables.cornsliceDepth[24 * corners + sliceSorted] & 0xFF) >= togo2Limit) return;
+                int togo2Limit = Math.min(S.shortestLen.get() - n1, 11);
+                if ((PruningTables.cornsliceDepth[24 * corners + sliceSorted] & 0xFF) >= togo2Limit) {
+                    pruned[P_PHASE1_CORNSLICE]++;
+                    return;
+                }
 
-                int uEdges = coCube.getUEdges();
-                int dEdges = coCube.getDEdges();
-                for (int mm : sofarPhase1) {
-                    uEdges = MoveTables.uEdgesMove[18 * uEdges + mm] & 0xFFFF;
-                    dEdges = MoveTables.dEdgesMove[18 * dEdges + mm] & 0xFFFF;
+                while (edgesValid < n1) {
+                    int mm = sofarPhase1[edgesValid];
+                    uEdgesAt[edgesValid + 1] = MoveTables.uEdgesMove[18 * uEdgesAt[edgesValid] + mm] & 0xFFFF;
+                    dEdgesAt[edgesValid + 1] = MoveTables.dEdgesMove[18 * dEdgesAt[edgesValid] + mm] & 0xFFFF;
+                    edgesValid++;
                 }
+                int uEdges = uEdgesAt[n1];
+                int dEdges = dEdgesAt[n1];
                 int udEdges = PruningTables.uEdgesPlusDEdgesToUdEdges[24 * uEdges + (dEdges % 24)] & 0xFFFF;
                 int dist2 = TwoPhaseCoordCube.getDepthPhase2(corners, udEdges);
 
                 for (int togo2 = dist2; togo2 < togo2Limit; togo2++) {
-                    sofarPhase2.clear();
+                    n2 = 0;
                     phase2Done = false;
                     searchPhase2(corners, udEdges, sliceSorted, dist2, togo2);
                     if (phase2Done || S.terminated.get()) break;
@@ -265,57 +376,89 @@ public class TwoPhaseSolver extends AbstractSolver {
                          m == Move.D1.ordinal() || m == Move.D2.ordinal() || m == Move.D3.ordinal() ||
                          m == Move.L2.ordinal() || m == Move.B2.ordinal())) continue;
 
-                    if (!sofarPhase1.isEmpty()) {
-                        if (badSuccessive(sofarPhase1.get(sofarPhase1.size() - 1), m)) continue;
+                    if (n1 > 0) {
+                        if (badSuccessive(sofarPhase1[n1 - 1], m)) continue;
                     }
 
+                    if ((++nodes & STOP_POLL_MASK) == 0 && stopRequested()) S.terminated.set(true);
                     int flipNew = MoveTables.flipMove[18 * flip + m] & 0xFFFF;
                     int twistNew = MoveTables.twistMove[18 * twist + m] & 0xFFFF;
                     int sliceSortedNew = MoveTables.sliceSortedMove[18 * sliceSorted + m] & 0xFFFF;
                     int flipslice = N_FLIP * (sliceSortedNew / N_PERM_4) + flipNew;
-                    int classidx = SymmetryTables.flipsliceClassidx[flipslice] & 0xFFFF;
-                    int sym = SymmetryTables.flipsliceSym[flipslice] & 0xFF;
+                    int classSym = SymmetryTables.flipsliceClassSym[flipslice];
+                    int classidx = SymmetryTables.classidx(classSym);
+                    int sym = SymmetryTables.sym(classSym);
                     int distNewMod3 = PruningTables.getFlipsliceTwistDepth3(
                         N_TWIST * classidx + (SymmetryTables.twistConj[(twistNew << 4) + sym] & 0xFFFF));
                     int distNew = PruningTables.dist[3 * disti + distNewMod3] & 0xFF;
-                    if (distNew >= togoPhase1) continue;
+                    if (distNew >= togoPhase1) { pruned[P_PHASE1]++; continue; }
 
-                    sofarPhase1.add(m);
+                    // Cached coordinates beyond this depth belonged to the previous move here
+                    if (cornersValid > n1) cornersValid = n1;
+                    if (edgesValid > n1) edgesValid = n1;
+                    sofarPhase1[n1++] = m;
                     search(flipNew, twistNew, sliceSortedNew, distNew, togoPhase1 - 1);
-                    sofarPhase1.remove(sofarPhase1.size() - 1);
+                    n1--;
                 }
             }
         }
 
-        @Override
-        public void run() {
-            CubieCube cb;
-            if (rot == 0) {
-                cb = cbCube;
-            } else if (rot == 1) {
-                cb = new CubieCube(SymmetryTables.symCube[32].getCpArray(), SymmetryTables.symCube[32].getCoArray(),
-                                   SymmetryTables.symCube[32].getEpArray(), SymmetryTables.symCube[32].getEoArray());
-                cb.multiply(cbCube);
-                cb.multiply(SymmetryTables.symCube[16]);
-            } else {
-                cb = new CubieCube(SymmetryTables.symCube[16].getCpArray(), SymmetryTables.symCube[16].getCoArray(),
-                                   SymmetryTables.symCube[16].getEpArray(), SymmetryTables.symCube[16].getEoArray());
-                cb.multiply(cbCube);
-                cb.multiply(SymmetryTables.symCube[32]);
-            }
-            if (inv == 1) {
-                CubieCube tmp = new CubieCube();
-                cb.invCubieCube(tmp);
-                cb = tmp;
-            }
-            cbCube = cb;
-            coCube = new TwoPhaseCoordCube(cb);
-            int dist = coCube.getDepthPhase1();
-            for (int togo1 = dist; togo1 < 20; togo1++) {
-                sofarPhase1.clear();
-                search(coCube.getFlip(), coCube.getTwist(), coCube.getSliceSorted(), dist, togo1);
-                if (S.terminated.get()) break;
+        // Search one orientation (rotation rot, inverse if inv == 1) of the cube until the shared state terminates
+        void run(CubieCube cube, int rot, int inv, int retLen, double timeout, long startTime, SharedState S) {
+            this.cbCube = cube;
+            this.rot = rot;
+            this.inv = inv;
+            this.retLength = retLen;
+            this.timeout = timeout;
+            this.startTime = startTime;
+            this.S = S;
+            this.nodes = 0;
+
+            try {
+                CubieCube cb;
+                if (rot == 0) {
+                    cb = new CubieCube(cbCube.getCpArray(), cbCube.getCoArray(), cbCube.getEpArray(), cbCube.getEoArray());
+                } else if (rot == 1) {
+                    cb = PackedCube.of(cbCube).conjugate(32).toCubieCube();
+                } else {
+                    cb = PackedCube.of(cbCube).conjugate(16).toCubieCube();
+                }
+                if (inv == 1) {
+                    CubieCube tmp = new CubieCube();
+                    cb.invCubieCube(tmp);
+                    cb = tmp;
+                }
+                cbCube = cb;
+                coCube = new TwoPhaseCoordCube(cb);
+                cornersAt[0] = coCube.getCorners();
+                uEdgesAt[0] = coCube.getUEdges();
+                dEdgesAt[0] = coCube.getDEdges();
+                cornersValid = 0;
+                edgesValid = 0;
+                int dist = coCube.getDepthPhase1();
+                if (stopRequested()) S.terminated.set(true);
+                for (int togo1 = dist; togo1 < 20; togo1++) {
+                    long nodesBefore = nodes;
+                    long depthStart = System.currentTimeMillis();
+                    int queued = POOL.getQueue().size();
+                    Arrays.fill(pruned, 0);
+                    n1 = 0;
+                    search(coCube.getFlip(), coCube.getTwist(), coCube.getSliceSorted(), dist, togo1);
+                    S.stats.add(togo1, nodes - nodesBefore, pruned, System.currentTimeMillis() - depthStart, 1, queued);
+                    if (S.terminated.get()) break;
+                }
+            } finally {
+                // Also after a failure, so the worker is free again for this thread's next search
+                S.nodeCount.addAndGet(nodes);
+                this.S = null;
+                this.cbCube = null;
+                this.coCube = null;
             }
         }
+
+        // The solve's control asks to stop, or the thread running this search was interrupted
+        private boolean stopRequested() {
+            return S.control.shouldStop() || Thread.currentThread().isInterrupted();
+        }
     }
 }
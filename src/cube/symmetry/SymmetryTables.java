@@ -2,8 +2,10 @@ package cube.symmetry;
 
 import cube.model.face.*;
 import cube.model.cubie.CubieCube;
+import cube.model.cubie.PackedCube;
 import cube.model.cubie.Defs;
-import java.io.*;
+import cube.tables.TableFile;
+import cube.progress.Progress;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -47,30 +49,49 @@ public class SymmetryTables {
     public static short[] tetraConj = new short[N_TETRA * N_SYM_D4h];
     public static short[] udEdgesConj = new short[N_UD_EDGES * N_SYM_D4h];
 
+    // The symmetry reductions store classidx << 4 | sym in one int (see classidx() and sym()),
+    // so a lookup reads one word instead of two arrays
+
     // Symmetry-reduction for (flip, slice_sorted)
-    // uint32_t classidx, uint8_t sym, uint32_t rep
-    public static int[] flipslicesortedClassidx;
-    public static byte[] flipslicesortedSym;
+    // classidx << 4 | sym, uint32_t rep
+    public static int[] flipslicesortedClassSym;
     public static int[] flipslicesortedRep;
+    // Sym-coordinate move table: entry N_MOVE * classidx + m is classidx' << 4 | sym' of the class
+    // representative after move m, so a search can move (classidx, sym) without touching the raw coordinates
+    public static int[] flipslicesortedMove;
+
+    // symMultD4h[16 * t + s] = u with symCube[t] * symCube[s] == symCube[u], for the D4h symmetries
+    public static byte[] symMultD4h = new byte[N_SYM_D4h * N_SYM_D4h];
 
     // Symmetry-reduction for (flip, slice)
-    // uint16_t classidx, uint8_t sym, uint32_t rep
-    public static short[] flipsliceClassidx;
-    public static byte[] flipsliceSym;
+    // classidx << 4 | sym, uint32_t rep
+    public static int[] flipsliceClassSym;
     public static int[] flipsliceRep;
 
     // Symmetry-reduction for corners
-    // uint16_t classidx, uint8_t sym, uint16_t rep
-    public static short[] cornerClassidx;
-    public static byte[] cornerSym;
+    // classidx << 4 | sym, uint16_t rep
+    public static int[] cornerClassSym;
     public static short[] cornerRep;
 
     private static final int INVALID32 = 0xffffffff;
-    private static final short INVALID16 = (short) 0xffff;
 
-    private static boolean initialized = false;
+    // Each solver loads only the tables it uses (see initTwoPhase / initOptimal)
+    private static boolean baseLoaded = false;
+    private static boolean twoPhaseLoaded = false;
+    private static boolean optimalLoaded = false;
+    private static boolean flipslicesortedLoaded = false;
     private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
 
+    // Class index of a classidx << 4 | sym entry
+    public static int classidx(int classSym) {
+        return classSym >>> 4;
+    }
+
+    // Symmetry of a classidx << 4 | sym entry
+    public static int sym(int classSym) {
+        return classSym & 15;
+    }
+
     private static void generateSymCubes() {
         basicSymCube[0] = new CubieCube(cpROT_URF3, coROT_URF3, epROT_URF3, eoROT_URF3);
         basicSymCube[1] = new CubieCube(cpROT_F2, coROT_F2, epROT_F2, eoROT_F2);
@@ -125,13 +146,25 @@ public class SymmetryTables {
         }
     }
 
+    private static void generateSymMultD4h() {
+        for (int t = 0; t < N_SYM_D4h; t++) {
+            for (int s = 0; s < N_SYM_D4h; s++) {
+                CubieCube c = new CubieCube(symCube[t].getCpArray(), symCube[t].getCoArray(), symCube[t].getEpArray(), symCube[t].getEoArray());
+                c.multiply(symCube[s]);
+                for (int u = 0; u < N_SYM_D4h; u++) {
+                    if (c.equals(symCube[u])) {
+                        symMultD4h[N_SYM_D4h * t + s] = (byte) u;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
     private static void buildOrLoadConjTwist() {
         String fname = "conj_twist";
-        File f = new File(fname);
-        if (f.exists()) {
-            loadShortArray(fname, twistConj);
-        } else {
-            System.out.println("creating conj_twist table...");
+        if (!TableFile.load(fname, twistConj)) {
+            Progress.message("creating conj_twist table...");
             for (int t = 0; t < N_TWIST; t++) {
                 CubieCube c = new CubieCube();
                 c.setTwist(t);
@@ -142,12 +175,12 @@ public class SymmetryTables {
                     twistConj[N_SYM_D4h * t + s] = (short) ss.getTwist();
                 }
             }
-            saveShortArray(fname, twistConj);
+            TableFile.save(fname, twistConj);
         }
     }
 
     private static void buildConjTetra() {
-        System.out.println("creating tetra_conj table...");
+        Progress.message("creating tetra_conj table...");
         CubieCube c = new CubieCube();
         for (int i = 0; i < N_TETRA; i++) {
             c.setTetra(i);
@@ -162,12 +195,8 @@ public class SymmetryTables {
 
     private static void buildOrLoadConjUDEdges() {
         String fname = "conj_ud_edges";
-        File f = new File(fname);
-        if (f.exists()) {
-            System.out.println("loading " + fname + " table...");
-            loadShortArray(fname, udEdgesConj);
-        } else {
-            System.out.println("creating " + fname + " table (" + NUM_THREADS + " threads)...");
+        if (!TableFile.load(fname, udEdgesConj)) {
+            Progress.message("creating " + fname + " table (" + NUM_THREADS + " threads)...");
             ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
             int chunkSize = N_UD_EDGES / NUM_THREADS;
             
@@ -189,29 +218,21 @@ public class SymmetryTables {
             }
             exec.shutdown();
             try { exec.awaitTermination(10, TimeUnit.MINUTES); } catch (InterruptedException e) {}
-            System.out.println("done.");
-            saveShortArray(fname, udEdgesConj);
+            Progress.message("done.");
+            TableFile.save(fname, udEdgesConj);
         }
     }
 
     private static void buildOrLoadFlipSliceSortedSymTables() {
-        String fname1 = "fs24_classidx";
-        String fname2 = "fs24_sym";
-        String fname3 = "fs24_rep";
-        File f1 = new File(fname1), f2 = new File(fname2), f3 = new File(fname3);
+        String fname1 = "fs24_classsym";
+        String fname2 = "fs24_rep";
 
-        flipslicesortedClassidx = new int[N_FLIP * N_SLICE_SORTED];
-        flipslicesortedSym = new byte[N_FLIP * N_SLICE_SORTED];
+        flipslicesortedClassSym = new int[N_FLIP * N_SLICE_SORTED];
         flipslicesortedRep = new int[N_FLIPSLICESORTED_CLASS];
 
-        if (f1.exists() && f2.exists() && f3.exists()) {
-            System.out.println("loading flipslicesorted sym-tables...");
-            loadIntArray(fname1, flipslicesortedClassidx);
-            loadByteArray(fname2, flipslicesortedSym);
-            loadIntArray(fname3, flipslicesortedRep);
-        } else {
-            System.out.println("creating flipslicesorted sym-tables...");
-            Arrays.fill(flipslicesortedClassidx, INVALID32);
+        if (!(loadClassSym(fname1, "fs24_classidx", "fs24_sym", flipslicesortedClassSym, false) && TableFile.load(fname2, flipslicesortedRep))) {
+            Progress.message("creating flipslicesorted sym-tables...");
+            Arrays.fill(flipslicesortedClassSym, INVALID32);
 
             int classidx = 0;
             CubieCube cc = new CubieCube();
@@ -221,10 +242,9 @@ public class SymmetryTables {
                 for (int flip = 0; flip < N_FLIP; ++flip) {
                     cc.setFlip(flip);
                     int idx = N_FLIP * slc + flip;
-                    if ((idx + 1) % 400000 == 0) System.out.print(".");
-                    if (flipslicesortedClassidx[idx] == INVALID32) {
-                        flipslicesortedClassidx[idx] = classidx;
-                        flipslicesortedSym[idx] = 0;
+                    if ((idx + 1) % 400000 == 0) Progress.tick();
+                    if (flipslicesortedClassSym[idx] == INVALID32) {
+                        flipslicesortedClassSym[idx] = classidx << 4;
                         flipslicesortedRep[classidx] = idx;
                     } else continue;
                     for (int s = 0; s < N_SYM_D4h; ++s) {
@@ -232,39 +252,64 @@ public class SymmetryTables {
                         ss.edgeMultiply(cc);
                         ss.edgeMultiply(symCube[s]);
                         int idxNew = N_FLIP * ss.getSliceSorted() + ss.getFlip();
-                        if (flipslicesortedClassidx[idxNew] == INVALID32) {
-                            flipslicesortedClassidx[idxNew] = classidx;
-                            flipslicesortedSym[idxNew] = (byte) s;
+                        if (flipslicesortedClassSym[idxNew] == INVALID32) {
+                            flipslicesortedClassSym[idxNew] = classidx << 4 | s;
                         }
                     }
                     ++classidx;
                 }
             }
-            System.out.println();
-            saveIntArray(fname1, flipslicesortedClassidx);
-            saveByteArray(fname2, flipslicesortedSym);
-            saveIntArray(fname3, flipslicesortedRep);
+            TableFile.save(fname1, flipslicesortedClassSym);
+            TableFile.save(fname2, flipslicesortedRep);
+        }
+    }
+
+    // Needs the flipslicesorted sym-tables. Works on the class representatives on the cubie level,
+    // so it does not depend on the move tables.
+    private static void buildOrLoadFlipSliceSortedMoveTable() {
+        String fname = "fs24_move";
+        flipslicesortedMove = new int[N_FLIPSLICESORTED_CLASS * N_MOVE];
+        if (!TableFile.load(fname, flipslicesortedMove)) {
+            Progress.message("creating " + fname + " table (" + NUM_THREADS + " threads)...");
+            ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
+            int chunkSize = N_FLIPSLICESORTED_CLASS / NUM_THREADS;
+
+            for (int th = 0; th < NUM_THREADS; th++) {
+                final int start = th * chunkSize;
+                final int end = (th == NUM_THREADS - 1) ? N_FLIPSLICESORTED_CLASS : start + chunkSize;
+                exec.submit(() -> {
+                    CubieCube c = new CubieCube();
+                    for (int i = start; i < end; i++) {
+                        if ((i + 1) % 48000 == 0) Progress.tick();
+                        int rep = flipslicesortedRep[i];
+                        c.setSliceSorted(rep / N_FLIP);
+                        c.setFlip(rep % N_FLIP);
+                        PackedCube pc = PackedCube.of(c);
+                        for (int m = 0; m < N_MOVE; m++) {
+                            PackedCube pm = pc.move(m);
+                            int idx = N_FLIP * pm.getSliceSorted() + pm.getFlip();
+                            flipslicesortedMove[N_MOVE * i + m] = flipslicesortedClassSym[idx];
+                        }
+                    }
+                });
+            }
+            exec.shutdown();
+            try { exec.awaitTermination(10, TimeUnit.MINUTES); } catch (InterruptedException e) {}
+            Progress.message("done.");
+            TableFile.save(fname, flipslicesortedMove);
         }
     }
 
     private static void buildOrLoadFlipSliceSymTables() {
-        String fname1 = "fs_classidx";
-        String fname2 = "fs_sym";
-        String fname3 = "fs_rep";
-        File f1 = new File(fname1), f2 = new File(fname2), f3 = new File(fname3);
+        String fname1 = "fs_classsym";
+        String fname2 = "fs_rep";
 
-        flipsliceClassidx = new short[N_FLIP * N_SLICE];
-        flipsliceSym = new byte[N_FLIP * N_SLICE];
+        flipsliceClassSym = new int[N_FLIP * N_SLICE];
         flipsliceRep = new int[N_FLIPSLICE_CLASS];
 
-        if (f1.exists() && f2.exists() && f3.exists()) {
-            System.out.println("loading flipslice sym-tables...");
-            loadShortArray(fname1, flipsliceClassidx);
-            loadByteArray(fname2, flipsliceSym);
-            loadIntArray(fname3, flipsliceRep);
-        } else {
-            System.out.println("creating flipslice sym-tables...");
-            Arrays.fill(flipsliceClassidx, INVALID16);
+        if (!(loadClassSym(fname1, "fs_classidx", "fs_sym", flipsliceClassSym, true) && TableFile.load(fname2, flipsliceRep))) {
+            Progress.message("creating flipslice sym-tables...");
+            Arrays.fill(flipsliceClassSym, INVALID32);
 
             int classidx = 0;
             CubieCube c = new CubieCube();
@@ -274,11 +319,9 @@ public class SymmetryTables {
                 for (int flip = 0; flip < N_FLIP; flip++) {
                     c.setFlip(flip);
                     int idx = N_FLIP * slc + flip;
-                    if ((idx + 1) % 4000 == 0) System.out.print(".");
-                    if ((idx + 1) % 320000 == 0) System.out.println();
-                    if (flipsliceClassidx[idx] == INVALID16) {
-                        flipsliceClassidx[idx] = (short) classidx;
-                        flipsliceSym[idx] = 0;
+                    if ((idx + 1) % 4000 == 0) Progress.tick();
+                    if (flipsliceClassSym[idx] == INVALID32) {
+                        flipsliceClassSym[idx] = classidx << 4;
                         flipsliceRep[classidx] = idx;
                     } else continue;
                     for (int s = 0; s < N_SYM_D4h; s++) {
@@ -286,49 +329,37 @@ public class SymmetryTables {
                         ss.edgeMultiply(c);
                         ss.edgeMultiply(symCube[s]);
                         int idxNew = N_FLIP * ss.getSlice() + ss.getFlip();
-                        if (flipsliceClassidx[idxNew] == INVALID16) {
-                            flipsliceClassidx[idxNew] = (short) classidx;
-                            flipsliceSym[idxNew] = (byte) s;
+                        if (flipsliceClassSym[idxNew] == INVALID32) {
+                            flipsliceClassSym[idxNew] = classidx << 4 | s;
                         }
                     }
                     classidx++;
                 }
             }
-            System.out.println();
-            saveShortArray(fname1, flipsliceClassidx);
-            saveByteArray(fname2, flipsliceSym);
-            saveIntArray(fname3, flipsliceRep);
+            TableFile.save(fname1, flipsliceClassSym);
+            TableFile.save(fname2, flipsliceRep);
         }
     }
 
     private static void buildOrLoadCornerSymTables() {
-        String fname1 = "co_classidx";
-        String fname2 = "co_sym";
-        String fname3 = "co_rep";
-        File f1 = new File(fname1), f2 = new File(fname2), f3 = new File(fname3);
+        String fname1 = "co_classsym";
+        String fname2 = "co_rep";
 
-        cornerClassidx = new short[N_CORNERS];
-        cornerSym = new byte[N_CORNERS];
+        cornerClassSym = new int[N_CORNERS];
         cornerRep = new short[N_CORNERS_CLASS];
 
-        if (f1.exists() && f2.exists() && f3.exists()) {
-            System.out.println("loading corner sym-tables...");
-            loadShortArray(fname1, cornerClassidx);
-            loadByteArray(fname2, cornerSym);
-            loadShortArray(fname3, cornerRep);
-        } else {
-            System.out.println("creating corner sym-tables...");
-            Arrays.fill(cornerClassidx, INVALID16);
+        if (!(loadClassSym(fname1, "co_classidx", "co_sym", cornerClassSym, true) && TableFile.load(fname2, cornerRep))) {
+            Progress.message("creating corner sym-tables...");
+            Arrays.fill(cornerClassSym, INVALID32);
 
             int classidx = 0;
             CubieCube c = new CubieCube();
 
             for (int cp = 0; cp < N_CORNERS; cp++) {
                 c.setCorners(cp);
-                if ((cp + 1) % 8000 == 0) System.out.print(".");
-                if (cornerClassidx[cp] == INVALID16) {
-                    cornerClassidx[cp] = (short) classidx;
-                    cornerSym[cp] = 0;
+                if ((cp + 1) % 8000 == 0) Progress.tick();
+                if (cornerClassSym[cp] == INVALID32) {
+                    cornerClassSym[cp] = classidx << 4;
                     cornerRep[classidx] = (short) cp;
                 } else continue;
                 for (int s = 0; s < N_SYM_D4h; s++) {
@@ -336,100 +367,88 @@ public class SymmetryTables {
                     ss.cornerMultiply(c);
                     ss.cornerMultiply(symCube[s]);
                     int cpNew = ss.getCorners();
-                    if (cornerClassidx[cpNew] == INVALID16) {
-                        cornerClassidx[cpNew] = (short) classidx;
-                        cornerSym[cpNew] = (byte) s;
+                    if (cornerClassSym[cpNew] == INVALID32) {
+                        cornerClassSym[cpNew] = classidx << 4 | s;
                     }
                 }
                 classidx++;
             }
-            System.out.println();
-            saveShortArray(fname1, cornerClassidx);
-            saveByteArray(fname2, cornerSym);
-            saveShortArray(fname3, cornerRep);
+            TableFile.save(fname1, cornerClassSym);
+            TableFile.save(fname2, cornerRep);
         }
     }
 
-    public static void init() {
-        if (initialized) return;
-        System.out.println("Initializing symmetry tables...");
+    /*
+     * Load a classidx << 4 | sym table. Older versions stored the class index and the symmetry in two
+     * files (uint16 or uint32 classidx, uint8 sym); if only those exist they are fused into classSym and
+     * the fused file is saved next to them. Returns false if neither is available, so the caller builds it.
+     */
+    private static boolean loadClassSym(String fname, String classidxFile, String symFile, int[] classSym, boolean shortClassidx) {
+        if (TableFile.exists(fname)) return TableFile.load(fname, classSym);
+        if (!(TableFile.exists(classidxFile) && TableFile.exists(symFile))) return false;
+
+        byte[] sym = new byte[classSym.length];
+        if (shortClassidx) {
+            short[] classidx = new short[classSym.length];
+            if (!(TableFile.load(classidxFile, classidx) && TableFile.load(symFile, sym))) return false;
+            for (int i = 0; i < classSym.length; i++) classSym[i] = (classidx[i] & 0xFFFF) << 4 | (sym[i] & 0xFF);
+        } else {
+            // Fuse in place: the int classidx table has exactly the size of the fused one
+            if (!(TableFile.load(classidxFile, classSym) && TableFile.load(symFile, sym))) return false;
+            for (int i = 0; i < classSym.length; i++) classSym[i] = classSym[i] << 4 | (sym[i] & 0xFF);
+        }
+        Progress.message("converted " + classidxFile + " and " + symFile + " to " + fname);
+        if (!TableFile.isReadOnly()) TableFile.save(fname, classSym);
+        return true;
+    }
+
+    // Symmetry cubes, inverses, conjugated moves, twist conjugation and the flipslice classes,
+    // used by both solvers. Building them takes a few milliseconds apart from the two tables read from disk.
+    public static synchronized void initBase() {
+        if (baseLoaded) return;
         generateSymCubes();
         generateInverseIndices();
         generateConjMove();
+        generateSymMultD4h();
         buildOrLoadConjTwist();
-        buildConjTetra();
-        buildOrLoadFlipSliceSortedSymTables();
-        buildOrLoadConjUDEdges();
         buildOrLoadFlipSliceSymTables();
-        buildOrLoadCornerSymTables();
-        initialized = true;
-        System.out.println("Symmetry tables initialized.");
+        baseLoaded = true;
     }
 
-    // I/O helpers for different types - all use LITTLE_ENDIAN to match C++
-    private static void saveIntArray(String fname, int[] arr) {
-        try (FileOutputStream fos = new FileOutputStream(fname);
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 65536)) {
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.allocate(arr.length * 4);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asIntBuffer().put(arr);
-            bos.write(bb.array());
-        } catch (IOException e) {
-            System.err.println("Error saving " + fname + ": " + e.getMessage());
-        }
-    }
-
-    private static void loadIntArray(String fname, int[] arr) {
-        try (FileInputStream fis = new FileInputStream(fname);
-             BufferedInputStream bis = new BufferedInputStream(fis, 65536)) {
-            byte[] bytes = bis.readAllBytes();
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap(bytes);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asIntBuffer().get(arr);
-        } catch (IOException e) {
-            System.err.println("Error loading " + fname + ": " + e.getMessage());
-        }
-    }
-
-    private static void saveShortArray(String fname, short[] arr) {
-        try (FileOutputStream fos = new FileOutputStream(fname);
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 65536)) {
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.allocate(arr.length * 2);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asShortBuffer().put(arr);
-            bos.write(bb.array());
-        } catch (IOException e) {
-            System.err.println("Error saving " + fname + ": " + e.getMessage());
-        }
+    // Symmetry tables of the two-phase solver; returns at once when they are already loaded
+    public static synchronized void initTwoPhase() {
+        if (twoPhaseLoaded) return;
+        Progress.message("Initializing two-phase symmetry tables...");
+        initBase();
+        buildOrLoadConjUDEdges();
+        buildOrLoadCornerSymTables();
+        twoPhaseLoaded = true;
+        Progress.message("Two-phase symmetry tables initialized.");
     }
 
-    private static void loadShortArray(String fname, short[] arr) {
-        try (FileInputStream fis = new FileInputStream(fname);
-             BufferedInputStream bis = new BufferedInputStream(fis, 65536)) {
-            byte[] bytes = bis.readAllBytes();
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap(bytes);
-            bb.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-            bb.asShortBuffer().get(arr);
-        } catch (IOException e) {
-            System.err.println("Error loading " + fname + ": " + e.getMessage());
-        }
+    // Symmetry tables every tier of the optimal solver uses; returns at once when they are already loaded
+    public static synchronized void initOptimal() {
+        if (optimalLoaded) return;
+        initBase();
+        buildConjTetra();
+        optimalLoaded = true;
     }
 
-    private static void saveByteArray(String fname, byte[] arr) {
-        try (FileOutputStream fos = new FileOutputStream(fname);
-             BufferedOutputStream bos = new BufferedOutputStream(fos, 65536)) {
-            bos.write(arr);
-        } catch (IOException e) {
-            System.err.println("Error saving " + fname + ": " + e.getMessage());
-        }
+    // flipslicesorted symmetry and sym-coordinate move tables (about 215MB), only needed by the phasex24 heuristic
+    public static synchronized void initFlipslicesorted() {
+        if (flipslicesortedLoaded) return;
+        Progress.message("Initializing flipslicesorted symmetry tables...");
+        initBase();
+        buildOrLoadFlipSliceSortedSymTables();
+        buildOrLoadFlipSliceSortedMoveTable();
+        flipslicesortedLoaded = true;
+        Progress.message("Flipslicesorted symmetry tables initialized.");
     }
 
-    private static void loadByteArray(String fname, byte[] arr) {
-        try (FileInputStream fis = new FileInputStream(fname);
-             BufferedInputStream bis = new BufferedInputStream(fis, 65536)) {
-            bis.read(arr);
-        } catch (IOException e) {
-            System.err.println("Error loading " + fname + ": " + e.getMessage());
-        }
+    // All symmetry tables
+    public static void init() {
+        initTwoPhase();
+        initOptimal();
+        initFlipslicesorted();
     }
 }
@@ -0,0 +1,367 @@
+package cube.tables;
+
+import cube.progress.Progress;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk container for the move, symmetry and pruning tables.
+ *
+ * Every table file starts with a 32 byte little endian header followed by the raw table data:
+ *   0  magic "RCTB"
+ *   4  format version
+ *   8  byte order mark 0x01020304
+ *  12  element size in bytes (1, 2 or 4)
+ *  16  number of elements
+ *  24  CRC32 of the table data
+ *
+ * A file whose header does not match the expected version, element size and count, that is
+ * shorter than announced or whose checksum fails is reported as invalid, so the caller rebuilds
+ * the table instead of searching with a corrupt heuristic. Mapped tables are the exception: to keep
+ * startup fast only their header and length are checked, the checksum only by verify(). Files are written to a temporary
+ * name and renamed when complete, so an interrupted build never leaves a partial table behind.
+ * Headerless files from earlier versions are upgraded in place if their size is exactly right.
+ *
+ * Table files live in the table directory, the working directory unless set with
+ * -Dcube.tables.dir=DIR or setDirectory(). With -Dcube.tables.readonly=true (or setReadOnly(true))
+ * the directory is treated as a shared, pre-built store: nothing is ever written there and a
+ * missing or invalid table is an error instead of being rebuilt. Use cube.app.GenerateTables to
+ * fill such a directory.
+ */
+public final class TableFile {
+
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    private static final int MAGIC = 0x42544352;            // "RCTB" read as a little endian int
+    private static final int BYTE_ORDER_MARK = 0x01020304;
+    private static final int CHUNK = 1 << 20;
+
+    private static volatile Path directory = Paths.get(System.getProperty("cube.tables.dir", "."));
+    private static volatile boolean readOnly = Boolean.getBoolean("cube.tables.readonly");
+
+    private TableFile() {}
+
+    // ========================= Location =========================
+
+    public static void setDirectory(String dir) {
+        directory = Paths.get(dir);
+    }
+
+    public static Path getDirectory() {
+        return directory;
+    }
+
+    public static void setReadOnly(boolean ro) {
+        readOnly = ro;
+    }
+
+    public static boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public static Path resolve(String fname) {
+        return directory.resolve(fname);
+    }
+
+    public static boolean exists(String fname) {
+        return Files.exists(resolve(fname));
+    }
+
+    // In a read-only store a table cannot be rebuilt, so there is no point in returning to the caller
+    private static IllegalStateException missingInStore(String fname, String problem) {
+        return new IllegalStateException("Table " + fname + " in read-only table directory " +
+                                         directory.toAbsolutePath() + " " + problem +
+                                         ". Generate the tables there with cube.app.GenerateTables.");
+    }
+
+    // ========================= Loading =========================
+
+    public static boolean load(String fname, byte[] arr) {
+        return load(fname, 1, arr.length, (bb, off) -> {
+            int n = bb.remaining();
+            bb.get(arr, off, n);
+            return n;
+        });
+    }
+
+    public static boolean load(String fname, short[] arr) {
+        return load(fname, 2, arr.length, (bb, off) -> {
+            int n = bb.remaining() / 2;
+            bb.asShortBuffer().get(arr, off, n);
+            return n;
+        });
+    }
+
+    public static boolean load(String fname, int[] arr) {
+        return load(fname, 4, arr.length, (bb, off) -> {
+            int n = bb.remaining() / 4;
+            bb.asIntBuffer().get(arr, off, n);
+            return n;
+        });
+    }
+
+    /**
+     * Map a valid table read-only as consecutive segments of segmentBytes each.
+     * Returns null if the file is missing or invalid. Only the header and the file length are checked,
+     * so that startup does not read the whole file; the checksum was computed from the data when the
+     * file was written, and verify() checks it on demand (GenerateTables does so).
+     */
+    public static MappedByteBuffer[] map(String fname, long count, long segmentBytes) {
+        if (!prepare(fname, 1, count)) return null;
+        int segments = (int) ((count + segmentBytes - 1) / segmentBytes);
+        MappedByteBuffer[] result = new MappedByteBuffer[segments];
+        try (FileChannel ch = FileChannel.open(resolve(fname), StandardOpenOption.READ)) {
+            for (int s = 0; s < segments; s++) {
+                long size = Math.min(segmentBytes, count - s * segmentBytes);
+                result[s] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + s * segmentBytes, size);
+            }
+        } catch (IOException e) {
+            if (readOnly) throw missingInStore(fname, "cannot be read (" + e.getMessage() + ")");
+            System.err.println("Error mapping " + fname + ": " + e.getMessage());
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Read a whole table file and check its data against the checksum in its header.
+     * Returns false, after reporting why, only for a file with a current header that its length or data
+     * does not match. A missing file, or one without a current header (a headerless legacy table or an
+     * older format version), is left to loading, which upgrades or rebuilds it, and passes.
+     */
+    public static boolean verify(String fname) {
+        Path p = resolve(fname);
+        if (!Files.exists(p)) return true;
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocateDirect(CHUNK);
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            ByteBuffer h = ch.size() >= HEADER_SIZE ? readHeader(ch) : null;
+            if (h == null || h.getInt(0) != MAGIC || h.getInt(4) != FORMAT_VERSION) return true;
+            Progress.message("verifying " + fname + " table...");
+            if (ch.size() != HEADER_SIZE + h.getInt(12) * h.getLong(16)) {
+                Progress.message(fname + " is damaged (file is truncated).");
+                return false;
+            }
+            while (ch.read(buf) > 0) {
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+            }
+            if (crc.getValue() != h.getLong(24)) {
+                Progress.message(fname + " is corrupt (checksum mismatch).");
+                return false;
+            }
+        } catch (IOException e) {
+            System.err.println("Error verifying " + fname + ": " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private interface ChunkSink {
+        // Copy the chunk into the target starting at element off, return the number of elements copied
+        int accept(ByteBuffer chunk, int off);
+    }
+
+    private static boolean load(String fname, int elemSize, long count, ChunkSink sink) {
+        if (!prepare(fname, elemSize, count)) return false;
+        Progress.message("loading " + fname + " table...");
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocateDirect(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel ch = FileChannel.open(resolve(fname), StandardOpenOption.READ)) {
+            long expectedCrc = readHeader(ch).getLong(24);
+            long remaining = count * elemSize;
+            int off = 0;
+            while (remaining > 0) {
+                buf.clear();
+                buf.limit((int) Math.min(CHUNK, remaining));
+                readFully(ch, buf, fname);
+                buf.flip();
+                crc.update(buf.duplicate());
+                off += sink.accept(buf, off);
+                remaining -= buf.limit();
+            }
+            if (crc.getValue() != expectedCrc) {
+                if (readOnly) throw missingInStore(fname, "is corrupt (checksum mismatch)");
+                Progress.message(fname + " is corrupt (checksum mismatch), it will be rebuilt.");
+                return false;
+            }
+        } catch (IOException e) {
+            if (readOnly) throw missingInStore(fname, "cannot be read (" + e.getMessage() + ")");
+            System.err.println("Error loading " + fname + ": " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    // Check that the file exists and its header and length describe the expected table,
+    // upgrading a headerless legacy file first if needed
+    private static boolean prepare(String fname, int elemSize, long count) {
+        File f = resolve(fname).toFile();
+        if (!f.exists()) {
+            if (readOnly) throw missingInStore(fname, "does not exist");
+            return false;
+        }
+        long payload = count * elemSize;
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer h = ch.size() >= HEADER_SIZE ? readHeader(ch) : null;
+            if (h == null || h.getInt(0) != MAGIC) {
+                if (ch.size() != payload) {
+                    if (readOnly) throw missingInStore(fname, "is not a valid table file");
+                    Progress.message(fname + " is not a valid table file, it will be rebuilt.");
+                    return false;
+                }
+                if (readOnly) throw missingInStore(fname, "has no header (older table format)");
+            } else {
+                String problem = null;
+                if (h.getInt(8) != BYTE_ORDER_MARK) problem = "wrong byte order";
+                else if (h.getInt(4) != FORMAT_VERSION) problem = "format version " + h.getInt(4) + ", expected " + FORMAT_VERSION;
+                else if (h.getInt(12) != elemSize || h.getLong(16) != count) problem = "unexpected table size";
+                else if (ch.size() != HEADER_SIZE + payload) problem = "file is truncated";
+                if (problem != null) {
+                    if (readOnly) throw missingInStore(fname, "is stale or damaged (" + problem + ")");
+                    Progress.message(fname + " is stale or damaged (" + problem + "), it will be rebuilt.");
+                    return false;
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            if (readOnly) throw missingInStore(fname, "cannot be read (" + e.getMessage() + ")");
+            System.err.println("Error reading " + fname + ": " + e.getMessage());
+            return false;
+        }
+        return upgradeLegacy(fname, elemSize, count);
+    }
+
+    // Wrap a headerless table from an earlier version into the container format
+    private static boolean upgradeLegacy(String fname, int elemSize, long count) {
+        Progress.message("upgrading " + fname + " to table format version " + FORMAT_VERSION + "...");
+        byte[] chunk = new byte[CHUNK];
+        try (InputStream in = new BufferedInputStream(new FileInputStream(resolve(fname).toFile()), CHUNK);
+             Writer w = new Writer(fname, elemSize, count)) {
+            int n;
+            while ((n = in.readNBytes(chunk, 0, CHUNK)) > 0) w.write(chunk, 0, n);
+        } catch (IOException e) {
+            System.err.println("Error upgrading " + fname + ": " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private static ByteBuffer readHeader(FileChannel ch) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        ch.position(0);
+        readFully(ch, h, "header");
+        return h;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, String what) throws IOException {
+        while (buf.hasRemaining()) {
+            if (ch.read(buf) < 0) throw new EOFException("unexpected end of " + what);
+        }
+    }
+
+    // ========================= Saving =========================
+
+    public static void save(String fname, byte[] arr) {
+        try (Writer w = new Writer(fname, 1, arr.length)) {
+            w.write(arr, 0, arr.length);
+        } catch (IOException e) {
+            System.err.println("Error saving " + fname + ": " + e.getMessage());
+        }
+    }
+
+    public static void save(String fname, short[] arr) {
+        try (Writer w = new Writer(fname, 2, arr.length)) {
+            ByteBuffer bb = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            for (int off = 0; off < arr.length; ) {
+                int n = Math.min(CHUNK / 2, arr.length - off);
+                bb.clear();
+                bb.asShortBuffer().put(arr, off, n);
+                w.write(bb.array(), 0, n * 2);
+                off += n;
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving " + fname + ": " + e.getMessage());
+        }
+    }
+
+    public static void save(String fname, int[] arr) {
+        try (Writer w = new Writer(fname, 4, arr.length)) {
+            ByteBuffer bb = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            for (int off = 0; off < arr.length; ) {
+                int n = Math.min(CHUNK / 4, arr.length - off);
+                bb.clear();
+                bb.asIntBuffer().put(arr, off, n);
+                w.write(bb.array(), 0, n * 4);
+                off += n;
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving " + fname + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streaming writer for tables too large to hold in one array.
+     * The file only appears under its final name once close() has written the checksum,
+     * and only if exactly the announced number of bytes was written.
+     */
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Path tmp;
+        private final long expectedBytes;
+        private final RandomAccessFile raf;
+        private final OutputStream out;
+        private final CRC32 crc = new CRC32();
+        private long written = 0;
+
+        public Writer(String fname, int elemSize, long count) throws IOException {
+            if (readOnly) throw new IOException("table directory " + directory.toAbsolutePath() + " is read-only");
+            Files.createDirectories(directory);
+            target = resolve(fname);
+            tmp = resolve(fname + ".tmp");
+            expectedBytes = count * elemSize;
+            raf = new RandomAccessFile(tmp.toFile(), "rw");
+            raf.setLength(0);
+            raf.write(header(elemSize, count, 0));
+            out = new BufferedOutputStream(new FileOutputStream(raf.getFD()), CHUNK);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            boolean complete = false;
+            try {
+                out.flush();
+                if (written != expectedBytes) {
+                    throw new IOException("wrote " + written + " of " + expectedBytes + " bytes");
+                }
+                raf.seek(24);
+                raf.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(crc.getValue()).array());
+                raf.getFD().sync();
+                complete = true;
+            } finally {
+                raf.close();
+                if (!complete) Files.deleteIfExists(tmp);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private static byte[] header(int elemSize, long count, long crc) {
+            ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            h.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(BYTE_ORDER_MARK).putInt(elemSize).putLong(count).putLong(crc);
+            return h.array();
+        }
+    }
+}